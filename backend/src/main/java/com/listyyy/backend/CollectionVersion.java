@@ -0,0 +1,17 @@
+package com.listyyy.backend;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Aggregate version of a set of rows, read with one query instead of the rows themselves.
+ * An insert moves {@code newest}, a delete lowers {@code rows}, an update raises {@code versions};
+ * so with the row count unchanged the tag can only repeat when nothing was written.
+ */
+public record CollectionVersion(long rows, Instant newest, long versions) {
+
+    public String etag() {
+        long micros = newest == null ? 0 : ChronoUnit.MICROS.between(Instant.EPOCH, newest);
+        return ETags.of(Long.toString(rows, 36), Long.toString(micros, 36), Long.toString(versions, 36));
+    }
+}
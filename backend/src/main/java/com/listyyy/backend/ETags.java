@@ -0,0 +1,39 @@
+package com.listyyy.backend;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Conditional GETs. The tag is computed from a cheap version query first; the body is only
+ * loaded when the client's {@code If-None-Match} does not already name it.
+ */
+public final class ETags {
+
+    private ETags() {}
+
+    /** Strong ETag made of the given parts, e.g. {@code "3-1a2b-12"}. */
+    public static String of(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-", "\"", "\""));
+    }
+
+    /** True when {@code If-None-Match} lists {@code etag} (weak or strong) or is {@code *}. */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /** 304 when the client already has {@code etag}, otherwise 200 with the body and the tag. */
+    public static <T> ResponseEntity<T> respond(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (matches(ifNoneMatch, etag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+}
@@ -0,0 +1,103 @@
+package com.listyyy.backend;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bounded pools background work runs on, instead of Spring's default executor. When a pool and its
+ * queue are full, push delivery and outbound HTTP run the task on the submitting thread, which slows the
+ * submitter down when Firebase or an image API is slow. Event dispatch drops the event instead, and clients
+ * catch up through delta sync (see {@code EventDispatcher}).
+ * <p>
+ * With {@code spring.threads.virtual.enabled} (Java 21+) the pools keep their bounds but start virtual threads,
+ * so their sizes can be raised well past the core count for I/O-bound work. Code that may run on them (or on
+ * request threads, virtual under the same flag) guards shared state with a {@code ReentrantLock} rather than
+ * {@code synchronized}: a virtual thread blocked on a monitor pins its carrier thread.
+ * <p>
+ * Metrics, tagged {@code name}: {@code listyyy.executor.active} (busy threads), {@code listyyy.executor.queued}
+ * (waiting tasks), {@code listyyy.executor.latency} (submit to done, queue wait included) and
+ * {@code listyyy.executor.rejected} (tasks the pool had no room for).
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor pushExecutor(MeterRegistry meterRegistry, Environment environment,
+                                               @Value("${listyyy.executors.push.threads:4}") int threads,
+                                               @Value("${listyyy.executors.push.queue-capacity:1000}") int queueCapacity) {
+        return executor(meterRegistry, environment, "push", threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor eventDispatchExecutor(MeterRegistry meterRegistry, Environment environment,
+                                                        @Value("${listyyy.events.dispatcher.threads:4}") int threads,
+                                                        @Value("${listyyy.events.dispatcher.queue-capacity:10000}") int queueCapacity) {
+        return executor(meterRegistry, environment, "event-dispatch", threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor outboundHttpExecutor(MeterRegistry meterRegistry, Environment environment,
+                                                       @Value("${listyyy.executors.outbound-http.threads:4}") int threads,
+                                                       @Value("${listyyy.executors.outbound-http.queue-capacity:100}") int queueCapacity) {
+        return executor(meterRegistry, environment, "outbound-http", threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ThreadPoolTaskExecutor executor(MeterRegistry meterRegistry, Environment environment, String name,
+                                                   int threads, int queueCapacity, RejectedExecutionHandler whenFull) {
+        Counter rejected = Counter.builder("listyyy.executor.rejected")
+                .tag("name", name)
+                .description("Tasks the pool had no room for (run by the caller or dropped, per pool)")
+                .register(meterRegistry);
+        Timer latency = Timer.builder("listyyy.executor.latency")
+                .tag("name", name)
+                .description("From submit until the task finished, queue wait included")
+                .register(meterRegistry);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory());
+        }
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            whenFull.rejectedExecution(task, pool);
+        });
+        executor.setTaskDecorator(task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                try {
+                    task.run();
+                } finally {
+                    latency.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        executor.initialize();
+        Gauge.builder("listyyy.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("name", name)
+                .description("Threads running a task")
+                .register(meterRegistry);
+        Gauge.builder("listyyy.executor.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("name", name)
+                .description("Tasks waiting for a thread")
+                .register(meterRegistry);
+        return executor;
+    }
+}
@@ -15,7 +15,7 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-    private static final String CONFLICT_MESSAGE = "הנתונים עודכנו על ידי משתמש אחר. רענן ונסה שוב.";
+    public static final String CONFLICT_MESSAGE = "הנתונים עודכנו על ידי משתמש אחר. רענן ונסה שוב.";
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
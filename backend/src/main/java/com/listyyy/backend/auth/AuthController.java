@@ -93,11 +93,11 @@ public class AuthController {
 
     @PatchMapping("/me")
     public ResponseEntity<AuthResponse> updateProfile(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @Valid @RequestBody UpdateProfileRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        return ResponseEntity.ok(authService.updateProfile(user, req));
+        return ResponseEntity.ok(authService.updateProfile(user.id(), req));
     }
 
     // ---- cookie helpers ----
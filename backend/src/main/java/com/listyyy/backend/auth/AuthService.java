@@ -1,11 +1,13 @@
 package com.listyyy.backend.auth;
 
+import com.listyyy.backend.exception.ResourceNotFoundException;
 import com.listyyy.backend.workspace.WorkspaceService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.security.SecureRandom;
 import java.time.Instant;
@@ -25,10 +27,12 @@ public class AuthService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final PrincipalCache principalCache;
     private final JwtProperties jwtProperties;
     private final SmsService smsService;
     private final EmailService emailService;
     private final WorkspaceService workspaceService;
+    private final TransactionTemplate transactionTemplate;
 
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
@@ -67,23 +71,34 @@ public class AuthService {
         return buildLoginResult(user);
     }
 
-    @Transactional
+    /** Stored and counted in one transaction; the SMS goes out after it, so the round trip holds no connection. */
     public void requestPhoneOtp(PhoneRequestOtpRequest req) {
         String phone = PhoneNormalizer.normalize(req.getPhone());
-        Instant oneHourAgo = Instant.now().minusSeconds(3600);
-        long count = otpRequestLogRepository.countByPhoneSince(phone, oneHourAgo);
-        if (count >= rateLimitPerPhonePerHour) {
-            throw new IllegalArgumentException("יותר מדי בקשות קוד. נסה שוב מאוחר יותר.");
-        }
         String code = String.format("%06d", ThreadLocalRandom.current().nextInt(100_000, 1_000_000));
-        Instant expiresAt = Instant.now().plusSeconds(otpTtlMinutes * 60L);
-        phoneOtpRepository.save(PhoneOtp.builder()
-                .phone(phone)
-                .code(code)
-                .expiresAt(expiresAt)
-                .build());
-        otpRequestLogRepository.save(OtpRequestLog.builder().phone(phone).build());
-        smsService.sendOtp(phone, code);
+        Long logId = transactionTemplate.execute(status -> {
+            Instant oneHourAgo = Instant.now().minusSeconds(3600);
+            long count = otpRequestLogRepository.countByPhoneSince(phone, oneHourAgo);
+            if (count >= rateLimitPerPhonePerHour) {
+                throw new IllegalArgumentException("יותר מדי בקשות קוד. נסה שוב מאוחר יותר.");
+            }
+            Instant expiresAt = Instant.now().plusSeconds(otpTtlMinutes * 60L);
+            phoneOtpRepository.save(PhoneOtp.builder()
+                    .phone(phone)
+                    .code(code)
+                    .expiresAt(expiresAt)
+                    .build());
+            return otpRequestLogRepository.save(OtpRequestLog.builder().phone(phone).build()).getId();
+        });
+        try {
+            smsService.sendOtp(phone, code);
+        } catch (RuntimeException e) {
+            // A code that was never sent is neither valid nor counted against the limit
+            transactionTemplate.executeWithoutResult(status -> {
+                phoneOtpRepository.deleteByPhoneAndCode(phone, code);
+                otpRequestLogRepository.deleteById(logId);
+            });
+            throw e;
+        }
     }
 
     @Transactional
@@ -119,23 +134,33 @@ public class AuthService {
         return buildLoginResult(user);
     }
 
-    @Transactional
+    /** Like {@link #requestPhoneOtp}: the email goes out after the transaction. */
     public void requestEmailOtp(EmailRequestOtpRequest req) {
         String email = req.getEmail().trim().toLowerCase();
-        Instant oneHourAgo = Instant.now().minusSeconds(3600);
-        long count = otpRequestLogRepository.countByEmailSince(email, oneHourAgo);
-        if (count >= rateLimitPerEmailPerHour) {
-            throw new IllegalArgumentException("יותר מדי בקשות קוד. נסה שוב מאוחר יותר.");
-        }
         String code = String.format("%06d", ThreadLocalRandom.current().nextInt(100_000, 1_000_000));
-        Instant expiresAt = Instant.now().plusSeconds(otpTtlMinutes * 60L);
-        emailOtpRepository.save(EmailOtp.builder()
-                .email(email)
-                .code(code)
-                .expiresAt(expiresAt)
-                .build());
-        otpRequestLogRepository.save(OtpRequestLog.builder().email(email).build());
-        emailService.sendOtp(email, code);
+        Long logId = transactionTemplate.execute(status -> {
+            Instant oneHourAgo = Instant.now().minusSeconds(3600);
+            long count = otpRequestLogRepository.countByEmailSince(email, oneHourAgo);
+            if (count >= rateLimitPerEmailPerHour) {
+                throw new IllegalArgumentException("יותר מדי בקשות קוד. נסה שוב מאוחר יותר.");
+            }
+            Instant expiresAt = Instant.now().plusSeconds(otpTtlMinutes * 60L);
+            emailOtpRepository.save(EmailOtp.builder()
+                    .email(email)
+                    .code(code)
+                    .expiresAt(expiresAt)
+                    .build());
+            return otpRequestLogRepository.save(OtpRequestLog.builder().email(email).build()).getId();
+        });
+        try {
+            emailService.sendOtp(email, code);
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> {
+                emailOtpRepository.deleteByEmailAndCode(email, code);
+                otpRequestLogRepository.deleteById(logId);
+            });
+            throw e;
+        }
     }
 
     @Transactional
@@ -176,7 +201,9 @@ public class AuthService {
     }
 
     @Transactional
-    public AuthResponse updateProfile(User user, UpdateProfileRequest req) {
+    public AuthResponse updateProfile(UUID userId, UpdateProfileRequest req) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("המשתמש לא נמצא"));
         String displayName = req.getDisplayName();
         if (displayName != null) {
             if (displayName.isBlank()) {
@@ -198,6 +225,7 @@ public class AuthService {
             user.setProfileImageUrl(url.isEmpty() ? null : url);
         }
         user = userRepository.save(user);
+        principalCache.invalidate(user.getId());
         String token = jwtService.generateToken(user);
         return toAuthResponse(user, token);
     }
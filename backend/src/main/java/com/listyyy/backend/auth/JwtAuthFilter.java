@@ -21,7 +21,7 @@ import java.util.UUID;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -35,13 +35,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
         String token = authHeader.substring(7);
-        if (!jwtService.validateToken(token)) {
+        var claims = jwtService.parseAndVerify(token);
+        if (claims.isEmpty()) {
             filterChain.doFilter(request, response);
             return;
         }
         try {
-            UUID userId = jwtService.getUserIdFromToken(token);
-            userRepository.findById(userId).ifPresent(user -> {
+            UUID userId = UUID.fromString(claims.get().getSubject());
+            principalCache.get(userId).ifPresent(user -> {
                 var auth = new UsernamePasswordAuthenticationToken(
                         user,
                         null,
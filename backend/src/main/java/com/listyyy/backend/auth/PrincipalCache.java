@@ -0,0 +1,75 @@
+package com.listyyy.backend.auth;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of authenticated principals keyed by user id, so the JWT filter and STOMP CONNECT
+ * do not hit the users table on every request. Any code that changes a user's profile must call
+ * {@link #invalidate}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${listyyy.auth.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${listyyy.auth.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    public Optional<UserPrincipal> get(UUID userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt() > now) return Optional.of(entry.principal());
+        Optional<UserPrincipal> loaded = userRepository.findById(userId).map(UserPrincipal::of);
+        loaded.ifPresentOrElse(
+                principal -> put(userId, new Entry(principal, now + ttlSeconds * 1000)),
+                () -> entries.remove(userId));
+        return loaded;
+    }
+
+    /**
+     * Evicts now and again after the current transaction commits: a request in between would otherwise
+     * reload the old row and cache it for the whole TTL.
+     */
+    public void invalidate(UUID userId) {
+        entries.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(userId);
+                }
+            });
+        }
+    }
+
+    private void put(UUID userId, Entry entry) {
+        if (entries.size() >= maxSize) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+            // Still full of live entries: drop arbitrary ones; they reload on next use
+            Iterator<UUID> it = entries.keySet().iterator();
+            while (entries.size() >= maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        entries.put(userId, entry);
+    }
+
+    private record Entry(UserPrincipal principal, long expiresAt) {}
+}
@@ -0,0 +1,22 @@
+package com.listyyy.backend.auth;
+
+import java.util.UUID;
+
+/**
+ * The authenticated user as seen by controllers ({@code @AuthenticationPrincipal}) and STOMP sessions.
+ * Immutable and entity-free, so it is cheap to cache and to keep for the life of a WebSocket session;
+ * code that changes the user loads the {@link User} entity by {@link #id()}.
+ */
+public record UserPrincipal(UUID id, String displayName, String email, String phone) {
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getDisplayName(), user.getEmail(), user.getPhone());
+    }
+
+    /** Name shown to other members: display name, else email, else phone. */
+    public String label() {
+        if (displayName != null) return displayName;
+        if (email != null) return email;
+        return phone;
+    }
+}
@@ -1,13 +1,18 @@
 package com.listyyy.backend.images;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.http.HttpClient;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Proxies image search to GIPHY Stickers or Pixabay so API keys stay server-side.
@@ -36,6 +41,20 @@ public class ImageSearchController {
     @Value("${listyyy.pixabay.insecure-ssl:false}")
     private boolean pixabayInsecureSsl;
 
+    @Autowired
+    @Qualifier("outboundHttpExecutor")
+    private Executor outboundHttpExecutor;
+
+    // Built once, on the bounded outbound-http pool
+    private HttpClient giphyClient;
+    private HttpClient pixabayClient;
+
+    @PostConstruct
+    void buildClients() {
+        giphyClient = InsecureSslHelper.buildHttpClient(giphyInsecureSsl, outboundHttpExecutor);
+        pixabayClient = InsecureSslHelper.buildHttpClient(pixabayInsecureSsl, outboundHttpExecutor);
+    }
+
     @GetMapping("/api/images/search")
     public ResponseEntity<ImageSearchResponse> search(
             @RequestParam("q") String query,
@@ -55,9 +74,7 @@ public class ImageSearchController {
         if (giphyApiKey == null || giphyApiKey.isBlank()) {
             throw new RuntimeException("לא הוגדר מפתח GIPHY. הגדר GIPHY_API_KEY בשרת.");
         }
-        ImageSearchGiphyService service = giphyApiUrl != null && !giphyApiUrl.isBlank()
-                ? new ImageSearchGiphyService(giphyApiUrl, giphyApiKey, giphyInsecureSsl)
-                : new ImageSearchGiphyService(giphyApiKey, giphyInsecureSsl);
+        ImageSearchGiphyService service = new ImageSearchGiphyService(giphyApiUrl, giphyApiKey, giphyClient);
         return service.search(query, Math.min(30, Math.max(1, perPage)));
     }
 
@@ -65,9 +82,7 @@ public class ImageSearchController {
         if (pixabayApiKey == null || pixabayApiKey.isBlank()) {
             throw new RuntimeException("לא הוגדר מפתח Pixabay. הגדר PIXABAY_API_KEY בשרת.");
         }
-        ImageSearchPixabayService service = pixabayApiUrl != null && !pixabayApiUrl.isBlank()
-                ? new ImageSearchPixabayService(pixabayApiUrl, pixabayApiKey, pixabayInsecureSsl)
-                : new ImageSearchPixabayService(pixabayApiKey, pixabayInsecureSsl);
+        ImageSearchPixabayService service = new ImageSearchPixabayService(pixabayApiUrl, pixabayApiKey, pixabayClient);
         return service.search(query, Math.min(30, Math.max(3, perPage)));
     }
 
@@ -37,9 +37,14 @@ class ImageSearchPixabayService {
     }
 
     ImageSearchPixabayService(String baseUrl, String apiKey, boolean insecureSsl) {
+        this(baseUrl, apiKey, InsecureSslHelper.buildHttpClient(insecureSsl, null));
+    }
+
+    /** With a shared client; a blank base URL means the public API. */
+    ImageSearchPixabayService(String baseUrl, String apiKey, HttpClient httpClient) {
         this.baseUrl = baseUrl != null && !baseUrl.isBlank() ? baseUrl.replaceAll("/$", "") : DEFAULT_BASE_URL;
         this.apiKey = apiKey;
-        this.httpClient = InsecureSslHelper.buildHttpClient(insecureSsl);
+        this.httpClient = httpClient;
     }
 
     List<ImageSearchController.ImageSearchResult> search(String query, int perPage) {
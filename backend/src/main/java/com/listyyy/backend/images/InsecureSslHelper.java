@@ -6,6 +6,7 @@ import javax.net.ssl.X509TrustManager;
 import java.net.http.HttpClient;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.Executor;
 
 /**
  * Shared helper for building an HttpClient that optionally skips SSL certificate validation.
@@ -15,8 +16,10 @@ final class InsecureSslHelper {
 
     private InsecureSslHelper() {}
 
-    static HttpClient buildHttpClient(boolean insecureSsl) {
+    /** @param executor runs the client's async work; null for the JDK's own (unbounded) pool */
+    static HttpClient buildHttpClient(boolean insecureSsl, Executor executor) {
         HttpClient.Builder builder = HttpClient.newBuilder();
+        if (executor != null) builder.executor(executor);
         if (insecureSsl) {
             try {
                 SSLContext sslContext = SSLContext.getInstance("TLS");
@@ -0,0 +1,22 @@
+package com.listyyy.backend.list;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/** One operation in {@code POST /api/lists/{listId}/items:batch}. */
+@Data
+public class BatchListItemOperation {
+
+    public enum Op { ADD, UPDATE, REMOVE }
+
+    private Op op;
+    /** Target item for UPDATE and REMOVE. */
+    private UUID itemId;
+    /** Payload for ADD. */
+    private AddListItemRequest add;
+    /** Payload for UPDATE (carries its own optimistic-locking version). */
+    private UpdateListItemRequest update;
+    /** Optimistic-locking version for REMOVE; null skips the check. */
+    private Long version;
+}
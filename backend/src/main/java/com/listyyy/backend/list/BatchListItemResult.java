@@ -0,0 +1,20 @@
+package com.listyyy.backend.list;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+/** Per-operation result of a batch, in request order. {@code status} uses HTTP codes (200, 204, 400, 404, 409). */
+@Data
+@Builder
+public class BatchListItemResult {
+
+    private int index;
+    private BatchListItemOperation.Op op;
+    private int status;
+    private UUID itemId;
+    /** The item after ADD / UPDATE. */
+    private ListItemResponse item;
+    private String message;
+}
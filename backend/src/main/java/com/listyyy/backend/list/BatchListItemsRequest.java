@@ -0,0 +1,11 @@
+package com.listyyy.backend.list;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchListItemsRequest {
+
+    private List<BatchListItemOperation> operations;
+}
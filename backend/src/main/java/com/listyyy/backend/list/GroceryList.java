@@ -1,5 +1,6 @@
 package com.listyyy.backend.list;
 
+import com.listyyy.backend.ordering.Rank;
 import com.listyyy.backend.workspace.Workspace;
 import jakarta.persistence.*;
 import lombok.*;
@@ -35,10 +36,25 @@ public class GroceryList {
     @Builder.Default
     private int sortOrder = 0;
 
+    /** Position key, see {@link Rank}; services assign the real value on create. */
+    @Column(name = "sort_rank", nullable = false, length = Rank.MAX_LENGTH)
+    @Builder.Default
+    private String sortRank = Rank.initial(0);
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "workspace_id", nullable = false)
     private Workspace workspace;
 
+    /** Latest item change on this list; only ever bumped in SQL by {@link ListChangeLog}. */
+    @Column(name = "change_seq", nullable = false, updatable = false)
+    @Builder.Default
+    private long changeSeq = 0;
+
+    /** Tombstones up to this sequence were pruned; clients behind it get a full reload. */
+    @Column(name = "sync_floor_seq", nullable = false, updatable = false)
+    @Builder.Default
+    private long syncFloorSeq = 0;
+
     @Version
     private Long version;
 
@@ -1,22 +1,86 @@
 package com.listyyy.backend.list;
 
+import com.listyyy.backend.CollectionVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public interface GroceryListRepository extends JpaRepository<GroceryList, UUID> {
 
-    List<GroceryList> findByWorkspaceIdOrderBySortOrder(UUID workspaceId);
+    List<GroceryList> findByWorkspaceIdOrderBySortRankAscCreatedAtAsc(UUID workspaceId);
 
     /** Lists visible to user: in any workspace the user is a member of. */
     @Query("SELECT l FROM GroceryList l " +
            "JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = l.workspace.id " +
            "WHERE wm.userId = :userId " +
-           "ORDER BY l.sortOrder ASC")
+           "ORDER BY l.sortRank ASC, l.createdAt ASC")
     List<GroceryList> findVisibleToUser(UUID userId);
 
+    /** {@link CollectionVersion} of {@link #findVisibleToUser}, for its ETag. */
+    @Query("SELECT new com.listyyy.backend.CollectionVersion(COUNT(l), MAX(l.createdAt), COALESCE(SUM(l.version), 0L)) " +
+           "FROM GroceryList l " +
+           "JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = l.workspace.id " +
+           "WHERE wm.userId = :userId")
+    CollectionVersion findVersionVisibleToUser(UUID userId);
+
+    @Query("SELECT new com.listyyy.backend.CollectionVersion(COUNT(l), MAX(l.createdAt), COALESCE(SUM(l.version), 0L)) " +
+           "FROM GroceryList l WHERE l.workspace.id = :workspaceId")
+    CollectionVersion findVersionByWorkspaceId(UUID workspaceId);
+
+    /** The list and the user's role in its workspace (null when not a member) as one row, or no row. */
+    @Query("SELECT l, wm.role FROM GroceryList l " +
+           "LEFT JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = l.workspace.id AND wm.userId = :userId " +
+           "WHERE l.id = :listId")
+    List<Object[]> findWithMemberRole(UUID listId, UUID userId);
+
+    /** Atomic bump; the row lock it takes orders concurrent writers to the same list until commit. */
+    @Modifying
+    @Query("UPDATE GroceryList l SET l.changeSeq = l.changeSeq + 1 WHERE l.id = :listId")
+    void bumpChangeSeq(UUID listId);
+
+    @Query("SELECT l.changeSeq FROM GroceryList l WHERE l.id = :listId")
+    long findChangeSeq(UUID listId);
+
+    /**
+     * Locks, in id order, the lists {@link #bumpChangeSeqForProduct} is about to bump. The UPDATE alone locks
+     * them in whatever order the plan visits them, which can deadlock against another writer on two of them.
+     * Only the locks matter; the rows are not read.
+     */
+    @Query(value = "SELECT l.id FROM lists l " +
+                   "WHERE l.id IN (SELECT i.list_id FROM list_items i WHERE i.product_id = :productId) " +
+                   "ORDER BY l.id FOR UPDATE", nativeQuery = true)
+    List<Object> lockListsWithProduct(UUID productId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GroceryList l SET l.changeSeq = l.changeSeq + 1 " +
+           "WHERE l.id IN (SELECT i.list.id FROM ListItem i WHERE i.product.id = :productId)")
+    void bumpChangeSeqForProduct(UUID productId);
+
+    /** As {@link #lockListsWithProduct}, for {@link #bumpChangeSeqForCategory}. */
+    @Query(value = "SELECT l.id FROM lists l " +
+                   "WHERE l.id IN (SELECT i.list_id FROM list_items i LEFT JOIN products p ON p.id = i.product_id " +
+                   "WHERE p.category_id = :categoryId OR i.category_id = :categoryId) " +
+                   "ORDER BY l.id FOR UPDATE", nativeQuery = true)
+    List<Object> lockListsWithCategory(UUID categoryId);
+
+    /** Lists with items of a product in this category, or custom items filed under it. */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GroceryList l SET l.changeSeq = l.changeSeq + 1 " +
+           "WHERE l.id IN (SELECT i.list.id FROM ListItem i LEFT JOIN i.product p " +
+           "WHERE p.category.id = :categoryId OR i.category.id = :categoryId)")
+    void bumpChangeSeqForCategory(UUID categoryId);
+
+    /** Raise the floor of lists whose tombstones older than the cutoff are about to be pruned. */
+    @Modifying
+    @Query("UPDATE GroceryList l SET l.syncFloorSeq = " +
+           "(SELECT MAX(t.changeSeq) FROM ListItemTombstone t WHERE t.listId = l.id AND t.deletedAt < :cutoff) " +
+           "WHERE l.id IN (SELECT t.listId FROM ListItemTombstone t WHERE t.deletedAt < :cutoff)")
+    void raiseSyncFloor(Instant cutoff);
+
     boolean existsByWorkspaceIdAndName(UUID workspaceId, String name);
 
     boolean existsByWorkspaceIdAndNameAndIdNot(UUID workspaceId, String name, UUID id);
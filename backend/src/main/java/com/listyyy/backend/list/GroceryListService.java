@@ -1,9 +1,13 @@
 package com.listyyy.backend.list;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.CollectionVersion;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.AccessDeniedException;
-import com.listyyy.backend.exception.ResourceNotFoundException;
 import com.listyyy.backend.exception.VersionCheck;
+import com.listyyy.backend.ordering.MoveRequest;
+import com.listyyy.backend.ordering.RankOrdering;
+import com.listyyy.backend.ordering.RankScope;
+import com.listyyy.backend.productbank.UsageCountService;
 import com.listyyy.backend.websocket.WorkspaceEvent;
 import com.listyyy.backend.websocket.WorkspaceEventPublisher;
 import com.listyyy.backend.workspace.Workspace;
@@ -14,31 +18,50 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class GroceryListService {
 
+    /** Lists are ordered per user across all of their workspaces. */
+    private static final String LISTS_OF_USER = "e.workspace.id IN (SELECT wm.workspaceId FROM "
+            + "com.listyyy.backend.workspace.WorkspaceMember wm WHERE wm.userId = :userId)";
+
     private final GroceryListRepository listRepository;
     private final ListItemRepository listItemRepository;
     private final ListAccessService listAccessService;
+    private final UsageCountService usageCountService;
     private final WorkspaceRepository workspaceRepository;
     private final WorkspaceAccessService workspaceAccessService;
     private final WorkspaceEventPublisher workspaceEventPublisher;
+    private final RankOrdering rankOrdering;
+    private final ListChangeLog changeLog;
 
-    public List<GroceryList> listsForUser(User user) {
-        return listRepository.findVisibleToUser(user.getId());
+    public List<GroceryList> listsForUser(UserPrincipal user) {
+        return listRepository.findVisibleToUser(user.id());
     }
 
     /** Lists for a specific workspace. */
-    public List<GroceryList> listsForWorkspace(UUID workspaceId, User user) {
+    public List<GroceryList> listsForWorkspace(UUID workspaceId, UserPrincipal user) {
         workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
-        return listRepository.findByWorkspaceIdOrderBySortOrder(workspaceId);
+        return listRepository.findByWorkspaceIdOrderBySortRankAscCreatedAtAsc(workspaceId);
+    }
+
+    /** Version of {@link #listsForUser} without loading the lists, for the ETag. */
+    public CollectionVersion listsVersionForUser(UserPrincipal user) {
+        return listRepository.findVersionVisibleToUser(user.id());
+    }
+
+    /** Version of {@link #listsForWorkspace} without loading the lists, for the ETag. */
+    public CollectionVersion listsVersionForWorkspace(UUID workspaceId, UserPrincipal user) {
+        workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
+        return listRepository.findVersionByWorkspaceId(workspaceId);
     }
 
     @Transactional
-    public GroceryList create(User user, UUID workspaceId, String name, String iconId, String imageUrl) {
+    public GroceryList create(UserPrincipal user, UUID workspaceId, String name, String iconId, String imageUrl) {
         Workspace workspace = workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
         String listName = name != null && !name.isBlank() ? name : "רשימה חדשה";
         if (listRepository.existsByWorkspaceIdAndName(workspaceId, listName)) {
@@ -49,24 +72,21 @@ public class GroceryListService {
                 .workspace(workspace)
                 .iconId(iconId)
                 .imageUrl(imageUrl)
+                .sortRank(rankOrdering.rankAtEnd(GroceryList.class, listsOf(user)))
                 .build();
         list = listRepository.save(list);
         workspaceEventPublisher.publish(workspaceId, WorkspaceEvent.EntityType.LIST,
-                WorkspaceEvent.Action.CREATED, list.getId(), list.getName(), user);
+                WorkspaceEvent.Action.CREATED, list.getId(), list.getName(),
+                ListResponse.from(list), list.getVersion(), user);
         return list;
     }
 
-    public GroceryList get(UUID listId, User user) {
-        GroceryList list = listRepository.findById(listId)
-                .orElseThrow(() -> new ResourceNotFoundException("הרשימה לא נמצאה"));
-        if (!listAccessService.canAccess(user, listId)) {
-            throw new AccessDeniedException("אין גישה");
-        }
-        return list;
+    public GroceryList get(UUID listId, UserPrincipal user) {
+        return listAccessService.getListOrThrow(listId, user);
     }
 
     @Transactional
-    public GroceryList update(UUID listId, User user, String name, String iconId, String imageUrl, Long clientVersion) {
+    public GroceryList update(UUID listId, UserPrincipal user, String name, String iconId, String imageUrl, Long clientVersion) {
         GroceryList list = get(listId, user);
         if (!listAccessService.canEdit(user, listId)) throw new AccessDeniedException("אין הרשאה לערוך");
         VersionCheck.check(clientVersion, list.getVersion());
@@ -78,29 +98,33 @@ public class GroceryListService {
         }
         if (iconId != null) list.setIconId(iconId.isBlank() ? null : iconId);
         if (imageUrl != null) list.setImageUrl(imageUrl.isBlank() ? null : imageUrl);
-        list = listRepository.save(list);
+        // Flush so the response and the event carry the bumped optimistic-locking version
+        list = listRepository.saveAndFlush(list);
         workspaceEventPublisher.publish(list.getWorkspace().getId(), WorkspaceEvent.EntityType.LIST,
-                WorkspaceEvent.Action.UPDATED, list.getId(), list.getName(), user);
+                WorkspaceEvent.Action.UPDATED, list.getId(), list.getName(),
+                ListResponse.from(list), list.getVersion(), user);
         return list;
     }
 
     @Transactional
-    public void reorder(User user, List<UUID> listIds) {
-        for (int i = 0; i < listIds.size(); i++) {
-            GroceryList list = listRepository.findById(listIds.get(i))
-                    .orElseThrow(() -> new ResourceNotFoundException("הרשימה לא נמצאה"));
-            if (!listAccessService.canAccess(user, list.getId())) {
-                throw new AccessDeniedException("אין גישה");
-            }
-            if (list.getSortOrder() != i) {
-                list.setSortOrder(i);
-                listRepository.save(list);
-            }
-        }
+    public void reorder(UserPrincipal user, List<UUID> listIds) {
+        rankOrdering.reorder(GroceryList.class, listIds, listsOf(user),
+                () -> new AccessDeniedException("אין גישה"));
     }
 
+    /** Move one list directly after another of the user's lists (or to the top); only the moved row is written. */
     @Transactional
-    public void delete(UUID listId, User user) {
+    public GroceryList move(UUID listId, UserPrincipal user, MoveRequest req) {
+        GroceryList list = get(listId, user);
+        VersionCheck.check(req.getVersion(), list.getVersion());
+        list.setSortRank(rankOrdering.rankAfter(GroceryList.class, listId, req.getAfterId(), listsOf(user),
+                () -> new AccessDeniedException("אין גישה")));
+        // Flush so the response carries the bumped optimistic-locking version
+        return listRepository.saveAndFlush(list);
+    }
+
+    @Transactional
+    public void delete(UUID listId, UserPrincipal user) {
         GroceryList list = get(listId, user);
         if (!listAccessService.isWorkspaceOwner(user, listId)) {
             throw new AccessDeniedException("רק בעל המרחב יכול למחוק רשימות");
@@ -108,9 +132,15 @@ public class GroceryListService {
         UUID wsId = list.getWorkspace().getId();
         String name = list.getName();
         // Delete children first to stay portable across DBs (H2 tests don't have ON DELETE CASCADE).
+        usageCountService.listItemsRemoved(listId);
         listItemRepository.deleteByListId(listId);
+        changeLog.listDeleted(listId);
         listRepository.delete(list);
         workspaceEventPublisher.publish(wsId, WorkspaceEvent.EntityType.LIST,
                 WorkspaceEvent.Action.DELETED, listId, name, user);
     }
+
+    private static RankScope listsOf(UserPrincipal user) {
+        return new RankScope(LISTS_OF_USER, Map.of("userId", user.id()));
+    }
 }
@@ -1,6 +1,6 @@
 package com.listyyy.backend.list;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.ResourceNotFoundException;
 import com.listyyy.backend.workspace.WorkspaceAccessService;
@@ -16,28 +16,31 @@ public class ListAccessService {
     private final GroceryListRepository listRepository;
     private final WorkspaceAccessService workspaceAccessService;
 
-    public boolean canAccess(User user, UUID listId) {
+    public boolean canAccess(UserPrincipal user, UUID listId) {
         if (user == null) return false;
         return listRepository.findById(listId)
                 .map(l -> workspaceAccessService.canAccess(user, l.getWorkspace().getId()))
                 .orElse(false);
     }
 
-    public boolean canEdit(User user, UUID listId) {
+    public boolean canEdit(UserPrincipal user, UUID listId) {
         return canAccess(user, listId);
     }
 
-    public boolean isWorkspaceOwner(User user, UUID listId) {
+    public boolean isWorkspaceOwner(UserPrincipal user, UUID listId) {
         if (user == null) return false;
         return listRepository.findById(listId)
                 .map(l -> workspaceAccessService.isOwner(user, l.getWorkspace().getId()))
                 .orElse(false);
     }
 
-    public GroceryList getListOrThrow(UUID listId, User user) {
-        GroceryList list = listRepository.findById(listId)
+    /** One query for the list and the caller's role; later checks in the request hit the caches. */
+    public GroceryList getListOrThrow(UUID listId, UserPrincipal user) {
+        if (user == null) throw new AccessDeniedException("אין גישה");
+        Object[] row = listRepository.findWithMemberRole(listId, user.id()).stream().findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("הרשימה לא נמצאה"));
-        if (!canAccess(user, listId)) throw new AccessDeniedException("אין גישה");
+        GroceryList list = (GroceryList) row[0];
+        workspaceAccessService.requireMember(user, list.getWorkspace().getId(), (String) row[1]);
         return list;
     }
 }
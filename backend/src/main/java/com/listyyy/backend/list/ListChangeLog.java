@@ -0,0 +1,128 @@
+package com.listyyy.backend.list;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-list change sequence behind delta sync ({@code GET /api/lists/{id}/items?since=}).
+ * Item writes are stamped with their list's sequence and removals leave a tombstone.
+ * The sequence is bumped by an atomic UPDATE whose row lock is held until commit,
+ * so a client never sees a sequence before all lower ones on that list are visible.
+ * Bumps that span several lists lock them in id order first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ListChangeLog {
+
+    /** Transaction resource key for the sequences already taken in the current transaction. */
+    private static final Object TX_SEQUENCES = new Object();
+
+    private final GroceryListRepository listRepository;
+    private final ListItemRepository listItemRepository;
+    private final ListItemTombstoneRepository tombstoneRepository;
+
+    @Value("${listyyy.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    /** The list's sequence for this transaction: bumped on first use, reused by later writes in it. */
+    @Transactional
+    public long nextSeq(UUID listId) {
+        Map<UUID, Long> taken = sequencesOfTransaction();
+        Long seq = taken.get(listId);
+        if (seq == null) {
+            listRepository.bumpChangeSeq(listId);
+            seq = listRepository.findChangeSeq(listId);
+            taken.put(listId, seq);
+        }
+        return seq;
+    }
+
+    @Transactional
+    public void itemChanged(ListItem item) {
+        item.setChangeSeq(nextSeq(item.getList().getId()));
+    }
+
+    @Transactional
+    public void itemRemoved(ListItem item) {
+        UUID listId = item.getList().getId();
+        tombstoneRepository.insert(item.getId(), listId, nextSeq(listId), Instant.now());
+    }
+
+    /** Items of this product render its name, unit and image, so they change with it on every list. */
+    @Transactional
+    public void productChanged(UUID productId) {
+        listRepository.lockListsWithProduct(productId);
+        listRepository.bumpChangeSeqForProduct(productId);
+        listItemRepository.stampForProduct(productId);
+    }
+
+    /** Call before bulk-deleting the product's items. */
+    @Transactional
+    public void productItemsRemoved(UUID productId) {
+        listRepository.lockListsWithProduct(productId);
+        listRepository.bumpChangeSeqForProduct(productId);
+        tombstoneRepository.insertForProduct(productId, Instant.now());
+    }
+
+    /** Items render their category's name and icon. */
+    @Transactional
+    public void categoryChanged(UUID categoryId) {
+        listRepository.lockListsWithCategory(categoryId);
+        listRepository.bumpChangeSeqForCategory(categoryId);
+        listItemRepository.stampForCategory(categoryId);
+    }
+
+    /** Call before deleting the category: its products' items go, custom items filed under it lose it. */
+    @Transactional
+    public void categoryRemoved(UUID categoryId) {
+        listRepository.lockListsWithCategory(categoryId);
+        listRepository.bumpChangeSeqForCategory(categoryId);
+        listItemRepository.stampForCategory(categoryId);
+        tombstoneRepository.insertForProductCategory(categoryId, Instant.now());
+    }
+
+    @Transactional
+    public void listDeleted(UUID listId) {
+        tombstoneRepository.deleteByListId(listId);
+    }
+
+    /** Drop old tombstones; lists that lose some get a floor below which clients must reload in full. */
+    @Scheduled(cron = "${listyyy.sync.tombstone-prune-cron:0 30 3 * * *}")
+    @Transactional
+    public void pruneTombstones() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(tombstoneRetentionDays));
+        listRepository.raiseSyncFloor(cutoff);
+        int pruned = tombstoneRepository.deleteOlderThan(cutoff);
+        if (pruned > 0) log.info("Pruned {} list item tombstones older than {}", pruned, cutoff);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<UUID, Long> sequencesOfTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return new HashMap<>();
+        Map<UUID, Long> taken = (Map<UUID, Long>) TransactionSynchronizationManager.getResource(TX_SEQUENCES);
+        if (taken == null) {
+            taken = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(TX_SEQUENCES, taken);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TX_SEQUENCES);
+                }
+            });
+        }
+        return taken;
+    }
+}
@@ -1,11 +1,16 @@
 package com.listyyy.backend.list;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.CollectionVersion;
+import com.listyyy.backend.ETags;
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.ordering.MoveRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,55 +25,58 @@ public class ListController {
     @GetMapping
     public ResponseEntity<List<ListResponse>> list(
             @RequestParam(required = false) UUID workspaceId,
-            @AuthenticationPrincipal User user
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        List<GroceryList> lists;
-        if (workspaceId != null) {
-            lists = listService.listsForWorkspace(workspaceId, user);
-        } else {
-            lists = listService.listsForUser(user);
-        }
-        List<ListResponse> body = lists.stream().map(this::toListResponse).toList();
-        return ResponseEntity.ok(body);
+        CollectionVersion version = workspaceId != null
+                ? listService.listsVersionForWorkspace(workspaceId, user)
+                : listService.listsVersionForUser(user);
+        return ETags.respond(ifNoneMatch, version.etag(), () -> {
+            List<GroceryList> lists = workspaceId != null
+                    ? listService.listsForWorkspace(workspaceId, user)
+                    : listService.listsForUser(user);
+            return lists.stream().map(ListResponse::from).toList();
+        });
     }
 
     @PostMapping
     public ResponseEntity<ListResponse> create(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody CreateListRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         if (req.getWorkspaceId() == null) throw new IllegalArgumentException("חובה לציין מרחב");
         GroceryList list = listService.create(user, req.getWorkspaceId(), req.getName(), req.getIconId(), req.getImageUrl());
-        return ResponseEntity.ok(toListResponse(list));
+        return ResponseEntity.ok(ListResponse.from(list));
     }
 
     @GetMapping("/{listId}")
     public ResponseEntity<ListResponse> get(
             @PathVariable UUID listId,
-            @AuthenticationPrincipal User user
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         GroceryList list = listService.get(listId, user);
-        return ResponseEntity.ok(toListResponse(list));
+        return ETags.respond(ifNoneMatch, ETags.of(list.getVersion()), () -> ListResponse.from(list));
     }
 
     @PutMapping("/{listId}")
     public ResponseEntity<ListResponse> update(
             @PathVariable UUID listId,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody UpdateListRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         GroceryList list = listService.update(listId, user, req.getName(), req.getIconId(), req.getImageUrl(), req.getVersion());
-        return ResponseEntity.ok(toListResponse(list));
+        return ResponseEntity.ok(ListResponse.from(list));
     }
 
     @DeleteMapping("/{listId}")
     public ResponseEntity<Void> delete(
             @PathVariable UUID listId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         listService.delete(listId, user);
@@ -78,52 +86,94 @@ public class ListController {
     @GetMapping("/{listId}/items")
     public ResponseEntity<List<ListItemResponse>> getItems(
             @PathVariable UUID listId,
-            @AuthenticationPrincipal User user
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        List<ListItem> items = listItemService.getItems(listId, user);
-        List<ListItemResponse> body = items.stream().map(this::toItemResponse).toList();
-        return ResponseEntity.ok(body);
+        // The change sequence moves on every item write, so an unchanged list costs only the access check
+        GroceryList list = listService.get(listId, user);
+        return ETags.respond(ifNoneMatch, ETags.of(list.getChangeSeq()),
+                () -> listItemService.getItems(list));
+    }
+
+    /** Delta sync: start with {@code since=0}, then pass the returned {@code seq}. */
+    @GetMapping(value = "/{listId}/items", params = "since")
+    public ResponseEntity<ListItemsDeltaResponse> getItemsSince(
+            @PathVariable UUID listId,
+            @RequestParam long since,
+            @AuthenticationPrincipal UserPrincipal user
+    ) {
+        if (user == null) return ResponseEntity.status(401).build();
+        ListItemService.ItemsDelta delta = listItemService.getItemsSince(listId, user, since);
+        return ResponseEntity.ok(ListItemsDeltaResponse.builder()
+                .seq(delta.seq())
+                .full(delta.full())
+                .items(delta.items())
+                .removedIds(delta.removedIds())
+                .build());
     }
 
     @PostMapping("/{listId}/items")
     public ResponseEntity<ListItemResponse> addItem(
             @PathVariable UUID listId,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody AddListItemRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         ListItem item = listItemService.addItem(listId, user, req);
-        return ResponseEntity.ok(toItemResponse(item));
+        return ResponseEntity.ok(ListItemResponse.from(item));
     }
 
     @PatchMapping("/{listId}/items/{itemId}")
     public ResponseEntity<ListItemResponse> updateItem(
             @PathVariable UUID listId,
             @PathVariable UUID itemId,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody UpdateListItemRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         ListItem item = listItemService.updateItem(listId, itemId, user, req);
-        return ResponseEntity.ok(toItemResponse(item));
+        return ResponseEntity.ok(ListItemResponse.from(item));
     }
 
     @DeleteMapping("/{listId}/items/{itemId}")
     public ResponseEntity<Void> removeItem(
             @PathVariable UUID listId,
             @PathVariable UUID itemId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         listItemService.removeItem(listId, itemId, user);
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{listId}/items:batch")
+    public ResponseEntity<List<BatchListItemResult>> batchItems(
+            @PathVariable UUID listId,
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestBody BatchListItemsRequest req
+    ) {
+        if (user == null) return ResponseEntity.status(401).build();
+        List<ListItemService.BatchOutcome> outcomes = listItemService.applyBatch(listId, user, req.getOperations());
+        List<BatchListItemResult> body = new ArrayList<>(outcomes.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            ListItemService.BatchOutcome o = outcomes.get(i);
+            body.add(BatchListItemResult.builder()
+                    .index(i)
+                    .op(o.op())
+                    .status(o.status())
+                    .itemId(o.itemId())
+                    .item(o.item() != null ? ListItemResponse.from(o.item()) : null)
+                    .message(o.error())
+                    .build());
+        }
+        return ResponseEntity.ok(body);
+    }
+
     @PutMapping("/{listId}/items/reorder")
     public ResponseEntity<Void> reorderItems(
             @PathVariable UUID listId,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody ReorderListItemsRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
@@ -131,9 +181,21 @@ public class ListController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{listId}/items/{itemId}/move")
+    public ResponseEntity<ListItemResponse> moveItem(
+            @PathVariable UUID listId,
+            @PathVariable UUID itemId,
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestBody MoveRequest req
+    ) {
+        if (user == null) return ResponseEntity.status(401).build();
+        ListItem item = listItemService.moveItem(listId, itemId, user, req);
+        return ResponseEntity.ok(ListItemResponse.from(item));
+    }
+
     @PutMapping("/reorder")
     public ResponseEntity<Void> reorder(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody ReorderListsRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
@@ -141,61 +203,15 @@ public class ListController {
         return ResponseEntity.noContent().build();
     }
 
-    private ListResponse toListResponse(GroceryList list) {
-        return ListResponse.builder()
-                .id(list.getId())
-                .name(list.getName())
-                .workspaceId(list.getWorkspace().getId())
-                .iconId(list.getIconId())
-                .imageUrl(list.getImageUrl())
-                .sortOrder(list.getSortOrder())
-                .createdAt(list.getCreatedAt())
-                .updatedAt(list.getUpdatedAt())
-                .version(list.getVersion())
-                .build();
+    @PostMapping("/{listId}/move")
+    public ResponseEntity<ListResponse> move(
+            @PathVariable UUID listId,
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestBody MoveRequest req
+    ) {
+        if (user == null) return ResponseEntity.status(401).build();
+        GroceryList list = listService.move(listId, user, req);
+        return ResponseEntity.ok(ListResponse.from(list));
     }
 
-    private ListItemResponse toItemResponse(ListItem item) {
-        UUID categoryId = null;
-        String categoryNameHe = null;
-        String categoryIconId = null;
-        String iconId = item.getIconId();
-        String productImageUrl = null;
-        if (item.getProduct() != null) {
-            if (item.getProduct().getCategory() != null) {
-                categoryId = item.getProduct().getCategory().getId();
-                categoryNameHe = item.getProduct().getCategory().getNameHe();
-                categoryIconId = item.getProduct().getCategory().getIconId();
-            }
-            if (iconId == null) iconId = item.getProduct().getIconId();
-            productImageUrl = item.getProduct().getImageUrl();
-        }
-        // Direct category on custom items overrides product-based category
-        if (item.getCategory() != null) {
-            categoryId = item.getCategory().getId();
-            categoryNameHe = item.getCategory().getNameHe();
-            categoryIconId = item.getCategory().getIconId();
-        }
-        return ListItemResponse.builder()
-                .id(item.getId())
-                .listId(item.getList().getId())
-                .productId(item.getProduct() != null ? item.getProduct().getId() : null)
-                .customNameHe(item.getCustomNameHe())
-                .displayName(item.getDisplayName())
-                .categoryId(categoryId)
-                .categoryNameHe(categoryNameHe)
-                .categoryIconId(categoryIconId)
-                .iconId(iconId)
-                .quantity(item.getQuantity())
-                .unit(item.getUnit())
-                .note(item.getNote())
-                .crossedOff(item.isCrossedOff())
-                .itemImageUrl(item.getItemImageUrl())
-                .productImageUrl(productImageUrl)
-                .sortOrder(item.getSortOrder())
-                .createdAt(item.getCreatedAt())
-                .updatedAt(item.getUpdatedAt())
-                .version(item.getVersion())
-                .build();
-    }
 }
@@ -1,5 +1,6 @@
 package com.listyyy.backend.list;
 
+import com.listyyy.backend.ordering.Rank;
 import com.listyyy.backend.productbank.Category;
 import com.listyyy.backend.productbank.Product;
 import jakarta.persistence.*;
@@ -65,6 +66,15 @@ public class ListItem {
     @Builder.Default
     private int sortOrder = 0;
 
+    /** Position key, see {@link Rank}; services assign the real value on create. */
+    @Column(name = "sort_rank", nullable = false, length = Rank.MAX_LENGTH)
+    @Builder.Default
+    private String sortRank = Rank.initial(0);
+
+    /** The list's change sequence at this item's last write, for delta sync. */
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
     @Version
     private Long version;
 
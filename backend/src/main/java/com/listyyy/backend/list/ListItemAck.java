@@ -0,0 +1,25 @@
+package com.listyyy.backend.list;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Reply to an item command sent over STOMP (see {@link ListItemMessageController}), on the sender's
+ * {@code /user/queue/list-item-acks}. {@code status} uses HTTP codes (200, 204, 400, 403, 404, 409, 500).
+ */
+@Data
+@Builder
+public class ListItemAck {
+
+    /** The {@code request-id} header of the command, so the client can match the reply. */
+    private String requestId;
+    private int status;
+    private UUID itemId;
+    /** The item after add / update / toggle / move. */
+    private ListItemResponse item;
+    /** Its optimistic-locking version now. */
+    private Long version;
+    private String message;
+}
@@ -0,0 +1,122 @@
+package com.listyyy.backend.list;
+
+import com.listyyy.backend.GlobalExceptionHandler;
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.exception.AccessDeniedException;
+import com.listyyy.backend.exception.ResourceNotFoundException;
+import com.listyyy.backend.exception.StaleDataException;
+import com.listyyy.backend.ordering.MoveRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Item edits over the client's STOMP session ({@code /app/lists/{listId}/items/...}): the user was
+ * authenticated once at CONNECT, so an edit costs one frame each way instead of an HTTPS request through the
+ * security filter chain. Each command may carry a {@code request-id} header; the {@link ListItemAck} goes
+ * back to the sending session only. Events to the list's subscribers are published as for HTTP.
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class ListItemMessageController {
+
+    private static final String ACKS = "/queue/list-item-acks";
+    private static final String REQUEST_ID = "request-id";
+
+    private final ListItemService listItemService;
+
+    @MessageMapping("/lists/{listId}/items/add")
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck add(@DestinationVariable UUID listId, @Payload AddListItemRequest req,
+                           @Header(name = REQUEST_ID, required = false) String requestId, Principal principal) {
+        return ok(requestId, listItemService.addItem(listId, user(principal), req));
+    }
+
+    @MessageMapping("/lists/{listId}/items/{itemId}/update")
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck update(@DestinationVariable UUID listId, @DestinationVariable UUID itemId,
+                              @Payload UpdateListItemRequest req,
+                              @Header(name = REQUEST_ID, required = false) String requestId, Principal principal) {
+        return ok(requestId, listItemService.updateItem(listId, itemId, user(principal), req));
+    }
+
+    /** Flips crossed-off; the payload is optional and only carries the version the client saw. */
+    @MessageMapping("/lists/{listId}/items/{itemId}/toggle")
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck toggle(@DestinationVariable UUID listId, @DestinationVariable UUID itemId,
+                              @Payload(required = false) UpdateListItemRequest req,
+                              @Header(name = REQUEST_ID, required = false) String requestId, Principal principal) {
+        Long version = req != null ? req.getVersion() : null;
+        return ok(requestId, listItemService.toggleItem(listId, itemId, user(principal), version));
+    }
+
+    @MessageMapping("/lists/{listId}/items/{itemId}/remove")
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck remove(@DestinationVariable UUID listId, @DestinationVariable UUID itemId,
+                              @Header(name = REQUEST_ID, required = false) String requestId, Principal principal) {
+        listItemService.removeItem(listId, itemId, user(principal));
+        return ListItemAck.builder().requestId(requestId).status(204).itemId(itemId).build();
+    }
+
+    @MessageMapping("/lists/{listId}/items/{itemId}/move")
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck move(@DestinationVariable UUID listId, @DestinationVariable UUID itemId,
+                            @Payload MoveRequest req,
+                            @Header(name = REQUEST_ID, required = false) String requestId, Principal principal) {
+        return ok(requestId, listItemService.moveItem(listId, itemId, user(principal), req));
+    }
+
+    @MessageMapping("/lists/{listId}/items/reorder")
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck reorder(@DestinationVariable UUID listId, @Payload ReorderListItemsRequest req,
+                               @Header(name = REQUEST_ID, required = false) String requestId, Principal principal) {
+        listItemService.reorderItems(listId, user(principal), req.getItemIds());
+        return ListItemAck.builder().requestId(requestId).status(204).build();
+    }
+
+    /** The same status and message the HTTP API would answer with. */
+    @MessageExceptionHandler
+    @SendToUser(destinations = ACKS, broadcast = false)
+    public ListItemAck failed(Exception e, @Header(name = REQUEST_ID, required = false) String requestId) {
+        int status = e instanceof IllegalArgumentException ? 400
+                : e instanceof AccessDeniedException ? 403
+                : e instanceof ResourceNotFoundException ? 404
+                : e instanceof StaleDataException || e instanceof ObjectOptimisticLockingFailureException ? 409
+                : 500;
+        String message = status == 500 ? "שגיאה פנימית"
+                : status == 409 && (e instanceof ObjectOptimisticLockingFailureException || e.getMessage() == null)
+                ? GlobalExceptionHandler.CONFLICT_MESSAGE
+                : e.getMessage();
+        if (status == 500) log.warn("Item command {} failed", requestId, e);
+        return ListItemAck.builder().requestId(requestId).status(status).message(message).build();
+    }
+
+    private static ListItemAck ok(String requestId, ListItem item) {
+        return ListItemAck.builder()
+                .requestId(requestId)
+                .status(200)
+                .itemId(item.getId())
+                .item(ListItemResponse.from(item))
+                .version(item.getVersion())
+                .build();
+    }
+
+    private static UserPrincipal user(Principal principal) {
+        if (principal instanceof UsernamePasswordAuthenticationToken auth && auth.getPrincipal() instanceof UserPrincipal user) {
+            return user;
+        }
+        throw new AccessDeniedException("אין גישה");
+    }
+}
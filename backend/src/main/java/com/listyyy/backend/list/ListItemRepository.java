@@ -9,9 +9,44 @@ import java.util.UUID;
 
 public interface ListItemRepository extends JpaRepository<ListItem, UUID> {
 
-    @Query("SELECT i FROM ListItem i LEFT JOIN FETCH i.product p LEFT JOIN FETCH p.category LEFT JOIN FETCH i.category WHERE i.list.id = :listId ORDER BY i.sortOrder, i.createdAt")
+    /**
+     * {@link ListItemResponse} columns, mirroring {@link ListItemResponse#from}: a custom item's own category
+     * wins over its product's, the item's icon over the product's.
+     */
+    String RESPONSE_SELECT = "SELECT new com.listyyy.backend.list.ListItemResponse(" +
+            "i.id, i.list.id, p.id, i.customNameHe, COALESCE(p.nameHe, i.customNameHe, ''), " +
+            "COALESCE(ic.id, pc.id), " +
+            "CASE WHEN ic.id IS NOT NULL THEN ic.nameHe ELSE pc.nameHe END, " +
+            "CASE WHEN ic.id IS NOT NULL THEN ic.iconId ELSE pc.iconId END, " +
+            "COALESCE(i.iconId, p.iconId), i.quantity, i.unit, i.note, i.crossedOff, i.itemImageUrl, p.imageUrl, " +
+            "i.sortOrder, i.sortRank, i.createdAt, i.updatedAt, i.version) " +
+            "FROM ListItem i LEFT JOIN i.product p LEFT JOIN p.category pc LEFT JOIN i.category ic ";
+
+    /** Managed items with everything {@link ListItemResponse#from} touches; for callers that need the entities. */
+    @Query("SELECT i FROM ListItem i LEFT JOIN FETCH i.product p LEFT JOIN FETCH p.category LEFT JOIN FETCH i.category WHERE i.list.id = :listId ORDER BY i.sortRank, i.createdAt")
     List<ListItem> findByListIdWithProductAndCategory(UUID listId);
 
+    /** Read path: response rows straight from the columns, no entities in the persistence context. */
+    @Query(RESPONSE_SELECT + "WHERE i.list.id = :listId ORDER BY i.sortRank, i.createdAt")
+    List<ListItemResponse> findResponsesByListId(UUID listId);
+
+    /** Response rows of the items written after the given list change sequence, in list order. */
+    @Query(RESPONSE_SELECT + "WHERE i.list.id = :listId AND i.changeSeq > :since ORDER BY i.sortRank, i.createdAt")
+    List<ListItemResponse> findResponsesByListIdChangedSince(UUID listId, long since);
+
+    /** Re-stamp items of this product with their list's (already bumped) sequence. */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ListItem i SET i.changeSeq = (SELECT l.changeSeq FROM GroceryList l WHERE l.id = i.list.id) " +
+           "WHERE i.product.id = :productId")
+    void stampForProduct(UUID productId);
+
+    /** Re-stamp items of a product in this category, or custom items filed under it. */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ListItem i SET i.changeSeq = (SELECT l.changeSeq FROM GroceryList l WHERE l.id = i.list.id) " +
+           "WHERE i.product.id IN (SELECT p.id FROM Product p WHERE p.category.id = :categoryId) " +
+           "OR i.category.id = :categoryId")
+    void stampForCategory(UUID categoryId);
+
     /** Distinct category IDs of products used on this list (for auto-sharing categories when list is shared). */
     @Query("SELECT DISTINCT p.category.id FROM ListItem i JOIN i.product p WHERE i.list.id = :listId")
     List<UUID> findDistinctCategoryIdsByListId(UUID listId);
@@ -20,13 +55,13 @@ public interface ListItemRepository extends JpaRepository<ListItem, UUID> {
     @Query("DELETE FROM ListItem i WHERE i.list.id = :listId")
     void deleteByListId(UUID listId);
 
-    /** Count of list items per product (only rows with product_id set). Returns [productId, count] per row. */
-    @Query(value = "SELECT li.product_id, COUNT(*) FROM list_items li WHERE li.product_id IS NOT NULL GROUP BY li.product_id", nativeQuery = true)
-    List<Object[]> countByProductId();
-
-    /** Count of list items per category (via product). Returns [categoryId, count] per row. */
-    @Query(value = "SELECT p.category_id, COUNT(li.id) FROM list_items li INNER JOIN products p ON li.product_id = p.id GROUP BY p.category_id", nativeQuery = true)
-    List<Object[]> countByCategoryId();
+    /**
+     * Usage of products on one list, for adjusting the usage-count projections before a bulk delete.
+     * Returns [productId, categoryId, workspaceId, count] per row.
+     */
+    @Query("SELECT p.id, c.id, c.workspace.id, COUNT(i) FROM ListItem i JOIN i.product p JOIN p.category c " +
+           "WHERE i.list.id = :listId GROUP BY p.id, c.id, c.workspace.id")
+    List<Object[]> countProductUsageByListId(UUID listId);
 
     boolean existsByListIdAndProductId(UUID listId, UUID productId);
 
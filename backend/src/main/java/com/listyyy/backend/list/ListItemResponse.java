@@ -1,14 +1,22 @@
 package com.listyyy.backend.list;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * Built from an entity by {@link #from}, or selected directly by the read-only projection
+ * queries in {@link ListItemRepository} (the all-args constructor, in field order).
+ */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ListItemResponse {
 
     private UUID id;
@@ -28,8 +36,55 @@ public class ListItemResponse {
     private String itemImageUrl;
     private String productImageUrl;
     private int sortOrder;
+    private String sortRank;
     private Instant createdAt;
     private Instant updatedAt;
     /** Optimistic-locking version. */
     private Long version;
+
+    /** From a managed item; its product and categories must be loaded or loadable. */
+    public static ListItemResponse from(ListItem item) {
+        UUID categoryId = null;
+        String categoryNameHe = null;
+        String categoryIconId = null;
+        String iconId = item.getIconId();
+        String productImageUrl = null;
+        if (item.getProduct() != null) {
+            if (item.getProduct().getCategory() != null) {
+                categoryId = item.getProduct().getCategory().getId();
+                categoryNameHe = item.getProduct().getCategory().getNameHe();
+                categoryIconId = item.getProduct().getCategory().getIconId();
+            }
+            if (iconId == null) iconId = item.getProduct().getIconId();
+            productImageUrl = item.getProduct().getImageUrl();
+        }
+        // Direct category on custom items overrides product-based category
+        if (item.getCategory() != null) {
+            categoryId = item.getCategory().getId();
+            categoryNameHe = item.getCategory().getNameHe();
+            categoryIconId = item.getCategory().getIconId();
+        }
+        return ListItemResponse.builder()
+                .id(item.getId())
+                .listId(item.getList().getId())
+                .productId(item.getProduct() != null ? item.getProduct().getId() : null)
+                .customNameHe(item.getCustomNameHe())
+                .displayName(item.getDisplayName())
+                .categoryId(categoryId)
+                .categoryNameHe(categoryNameHe)
+                .categoryIconId(categoryIconId)
+                .iconId(iconId)
+                .quantity(item.getQuantity())
+                .unit(item.getUnit())
+                .note(item.getNote())
+                .crossedOff(item.isCrossedOff())
+                .itemImageUrl(item.getItemImageUrl())
+                .productImageUrl(productImageUrl)
+                .sortOrder(item.getSortOrder())
+                .sortRank(item.getSortRank())
+                .createdAt(item.getCreatedAt())
+                .updatedAt(item.getUpdatedAt())
+                .version(item.getVersion())
+                .build();
+    }
 }
@@ -1,40 +1,218 @@
 package com.listyyy.backend.list;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.ResourceNotFoundException;
+import com.listyyy.backend.exception.StaleDataException;
 import com.listyyy.backend.exception.VersionCheck;
+import com.listyyy.backend.ordering.MoveRequest;
+import com.listyyy.backend.ordering.RankOrdering;
+import com.listyyy.backend.ordering.RankScope;
 import com.listyyy.backend.productbank.Category;
 import com.listyyy.backend.productbank.CategoryRepository;
 import com.listyyy.backend.productbank.Product;
 import com.listyyy.backend.productbank.ProductRepository;
+import com.listyyy.backend.productbank.ProductSuggestIndex;
+import com.listyyy.backend.productbank.UsageCountService;
 import com.listyyy.backend.websocket.ListEventPublisher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ListItemService {
 
+    private static final int MAX_BATCH_OPERATIONS = 200;
+    private static final String ITEMS_OF_LIST = "e.list.id = :listId";
+
     private final ListItemRepository listItemRepository;
     private final GroceryListRepository listRepository;
     private final ListAccessService listAccessService;
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final UsageCountService usageCountService;
+    private final ProductSuggestIndex productSuggestIndex;
     private final ListEventPublisher listEventPublisher;
+    private final RankOrdering rankOrdering;
+    private final ListChangeLog changeLog;
+    private final ListItemTombstoneRepository tombstoneRepository;
+
+    /** Items of a list the caller was already checked against, as response rows. */
+    @Transactional(readOnly = true)
+    public List<ListItemResponse> getItems(GroceryList list) {
+        return listItemRepository.findResponsesByListId(list.getId());
+    }
+
+    /**
+     * Items written and ids removed after change sequence {@code since}, plus the sequence to ask from next time.
+     * The list (and its sequence) is read before the items, so a write racing this read is re-sent, never lost.
+     * A client older than the list's pruned tombstones gets every item with {@code full} set.
+     */
+    @Transactional(readOnly = true)
+    public ItemsDelta getItemsSince(UUID listId, UserPrincipal user, long since) {
+        GroceryList list = listAccessService.getListOrThrow(listId, user);
+        long seq = list.getChangeSeq();
+        if (since < list.getSyncFloorSeq()) {
+            return new ItemsDelta(seq, true, listItemRepository.findResponsesByListId(listId), List.of());
+        }
+        if (since >= seq) return new ItemsDelta(seq, false, List.of(), List.of());
+        return new ItemsDelta(seq, false, listItemRepository.findResponsesByListIdChangedSince(listId, since),
+                tombstoneRepository.findItemIdsRemovedSince(listId, since));
+    }
+
+    public record ItemsDelta(long seq, boolean full, List<ListItemResponse> items, List<UUID> removedIds) {}
+
+    @Transactional
+    public ListItem addItem(UUID listId, UserPrincipal user, AddListItemRequest req) {
+        GroceryList list = listAccessService.getListOrThrow(listId, user);
+        ListItem item = add(list, req);
+        // Flush so the event carries the stored timestamps and version
+        listItemRepository.flush();
+        listEventPublisher.publishItemAdded(listId, item, user);
+        return item;
+    }
+
+    @Transactional
+    public ListItem updateItem(UUID listId, UUID itemId, UserPrincipal user, UpdateListItemRequest req) {
+        ListItem item = getItemOrThrow(listId, itemId, user);
+        item = update(item, req);
+        listItemRepository.flush();
+        listEventPublisher.publishItemUpdated(listId, item, user);
+        return item;
+    }
+
+    /** Flip crossed-off without the client sending the current state; {@code version} may be null. */
+    @Transactional
+    public ListItem toggleItem(UUID listId, UUID itemId, UserPrincipal user, Long version) {
+        ListItem item = getItemOrThrow(listId, itemId, user);
+        UpdateListItemRequest req = new UpdateListItemRequest();
+        req.setCrossedOff(!item.isCrossedOff());
+        req.setVersion(version);
+        item = update(item, req);
+        listItemRepository.flush();
+        listEventPublisher.publishItemUpdated(listId, item, user);
+        return item;
+    }
 
-    public List<ListItem> getItems(UUID listId, User user) {
+    @Transactional
+    public void removeItem(UUID listId, UUID itemId, UserPrincipal user) {
+        ListItem item = getItemOrThrow(listId, itemId, user);
+        String displayName = item.getDisplayName();
+        String quantityUnit = item.getQuantity() + " " + item.getUnit();
+        remove(item);
+        listEventPublisher.publishItemRemoved(listId, itemId, displayName, quantityUnit, user);
+    }
+
+    @Transactional
+    public void reorderItems(UUID listId, UserPrincipal user, List<UUID> itemIds) {
         listAccessService.getListOrThrow(listId, user);
-        return listItemRepository.findByListIdWithProductAndCategory(listId);
+        rankOrdering.reorder(ListItem.class, itemIds, itemsOf(listId),
+                () -> new IllegalArgumentException("הפריט לא שייך לרשימה"));
+    }
+
+    /** Move one item directly after another (or to the top); only the moved row is written. */
+    @Transactional
+    public ListItem moveItem(UUID listId, UUID itemId, UserPrincipal user, MoveRequest req) {
+        ListItem item = getItemOrThrow(listId, itemId, user);
+        VersionCheck.check(req.getVersion(), item.getVersion());
+        item.setSortRank(rankOrdering.rankAfter(ListItem.class, itemId, req.getAfterId(), itemsOf(listId),
+                () -> new IllegalArgumentException("הפריט לא שייך לרשימה")));
+        changeLog.itemChanged(item);
+        // Flush so the response carries the bumped optimistic-locking version
+        return listItemRepository.saveAndFlush(item);
     }
 
+    /**
+     * Apply mixed add/update/remove operations in one transaction with one access check.
+     * A failing operation is reported in its result and skipped; the others still commit.
+     * Listeners get a single event and push for the whole batch.
+     */
     @Transactional
-    public ListItem addItem(UUID listId, User user, AddListItemRequest req) {
+    public List<BatchOutcome> applyBatch(UUID listId, UserPrincipal user, List<BatchListItemOperation> operations) {
+        if (operations == null || operations.isEmpty()) throw new IllegalArgumentException("אין פעולות לביצוע");
+        if (operations.size() > MAX_BATCH_OPERATIONS) throw new IllegalArgumentException("יותר מדי פעולות בבקשה אחת");
         GroceryList list = listAccessService.getListOrThrow(listId, user);
+        List<BatchOutcome> outcomes = new ArrayList<>(operations.size());
+        // Versions only bump at flush, so a second write to the same item could not be version-checked
+        Set<UUID> touched = new HashSet<>();
+        for (BatchListItemOperation op : operations) {
+            try {
+                if (op.getItemId() != null && !touched.add(op.getItemId())) {
+                    throw new IllegalArgumentException("הפריט מופיע יותר מפעם אחת בבקשה");
+                }
+                outcomes.add(apply(list, op));
+            } catch (IllegalArgumentException | ResourceNotFoundException | StaleDataException e) {
+                outcomes.add(BatchOutcome.failed(op, e));
+            }
+        }
+        // Flush once (JDBC-batched) so returned versions reflect the updates
+        listItemRepository.flush();
+        List<BatchOutcome> applied = outcomes.stream().filter(BatchOutcome::succeeded).toList();
+        if (!applied.isEmpty()) listEventPublisher.publishBatch(listId, applied, user);
+        return outcomes;
+    }
+
+    /**
+     * Result of one batch operation: the affected item on success, or the error and its HTTP status. A removal
+     * keeps the item's name and quantity/unit, as the item itself is gone.
+     */
+    public record BatchOutcome(BatchListItemOperation.Op op, UUID itemId, ListItem item, String itemDisplayName,
+                               String quantityUnit, int status, String error) {
+
+        static BatchOutcome ok(BatchListItemOperation.Op op, ListItem item) {
+            return new BatchOutcome(op, item.getId(), item, item.getDisplayName(), null, 200, null);
+        }
+
+        static BatchOutcome removed(UUID itemId, String itemDisplayName, String quantityUnit) {
+            return new BatchOutcome(BatchListItemOperation.Op.REMOVE, itemId, null, itemDisplayName, quantityUnit, 204, null);
+        }
+
+        static BatchOutcome failed(BatchListItemOperation op, RuntimeException e) {
+            int status = e instanceof ResourceNotFoundException ? 404 : e instanceof StaleDataException ? 409 : 400;
+            return new BatchOutcome(op.getOp(), op.getItemId(), null, null, null, status, e.getMessage());
+        }
+
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    private BatchOutcome apply(GroceryList list, BatchListItemOperation op) {
+        if (op.getOp() == null) throw new IllegalArgumentException("סוג פעולה חסר");
+        return switch (op.getOp()) {
+            case ADD -> {
+                if (op.getAdd() == null) throw new IllegalArgumentException("חסרים נתוני הוספה");
+                yield BatchOutcome.ok(op.getOp(), add(list, op.getAdd()));
+            }
+            case UPDATE -> {
+                if (op.getUpdate() == null) throw new IllegalArgumentException("חסרים נתוני עדכון");
+                yield BatchOutcome.ok(op.getOp(), update(findItemInList(list.getId(), op.getItemId()), op.getUpdate()));
+            }
+            case REMOVE -> {
+                ListItem item = findItemInList(list.getId(), op.getItemId());
+                VersionCheck.check(op.getVersion(), item.getVersion());
+                String displayName = item.getDisplayName();
+                String quantityUnit = item.getQuantity() + " " + item.getUnit();
+                remove(item);
+                yield BatchOutcome.removed(op.getItemId(), displayName, quantityUnit);
+            }
+        };
+    }
+
+    // ---- single-item mutations, shared by the per-item endpoints and the batch ----
+    // Each validates everything before writing, so a rejected batch operation leaves nothing behind.
+
+    private ListItem add(GroceryList list, AddListItemRequest req) {
+        UUID listId = list.getId();
         ListItem item;
         if (req.getProductId() != null) {
             Product product = productRepository.findById(req.getProductId()).orElseThrow(() -> new ResourceNotFoundException("הפריט לא נמצא"));
@@ -63,25 +241,27 @@ public class ListItemService {
                 throw new IllegalArgumentException("יש להזין שם מותאם אישית או לבחור פריט");
             }
             if (req.getCategoryId() != null) {
-                final Category category = categoryRepository.findById(req.getCategoryId())
-                        .orElseThrow(() -> new ResourceNotFoundException("הקטגוריה לא נמצאה"));
-                if (!category.getWorkspace().getId().equals(list.getWorkspace().getId())) {
-                    throw new IllegalArgumentException("הקטגוריה לא שייכת למרחב העבודה של הרשימה");
-                }
-                // Auto-create (or reuse) a product in the product bank so it appears in the Categories page
-                Product product = productRepository.findByCategoryIdAndNameHe(category.getId(), req.getCustomNameHe())
-                        .orElseGet(() -> productRepository.save(Product.builder()
-                                .category(category)
-                                .nameHe(req.getCustomNameHe())
-                                .defaultUnit(req.getUnit() != null ? req.getUnit() : "יחידה")
-                                .iconId(req.getIconId())
-                                .imageUrl(req.getItemImageUrl())
-                                .note(req.getNote())
-                                .build()));
+                final Category category = categoryInWorkspaceOrThrow(req.getCategoryId(), list);
+                Optional<Product> existing = productRepository.findByCategoryIdAndNameHe(category.getId(), req.getCustomNameHe());
                 // Prevent adding the same product twice to a list
-                if (listItemRepository.existsByListIdAndProductId(listId, product.getId())) {
+                if (existing.isPresent() && listItemRepository.existsByListIdAndProductId(listId, existing.get().getId())) {
                     throw new IllegalArgumentException("הפריט כבר קיים ברשימה");
                 }
+                // Auto-create (or reuse) a product in the product bank so it appears in the Categories page
+                Product product = existing
+                        .orElseGet(() -> {
+                            Product created = productRepository.save(Product.builder()
+                                    .category(category)
+                                    .nameHe(req.getCustomNameHe())
+                                    .defaultUnit(req.getUnit() != null ? req.getUnit() : "יחידה")
+                                    .iconId(req.getIconId())
+                                    .imageUrl(req.getItemImageUrl())
+                                    .note(req.getNote())
+                                    .build());
+                            // Only a new product changes the index; a reused one is already in it
+                            productSuggestIndex.productSaved(created);
+                            return created;
+                        });
                 item = ListItem.builder()
                         .list(list)
                         .product(product)
@@ -109,15 +289,21 @@ public class ListItemService {
                         .build();
             }
         }
+        item.setSortRank(rankOrdering.rankAtEnd(ListItem.class, new RankScope(ITEMS_OF_LIST, Map.of("listId", listId))));
+        changeLog.itemChanged(item);
         item = listItemRepository.save(item);
-        listEventPublisher.publishItemAdded(listId, item, user);
+        if (item.getProduct() != null) usageCountService.itemAdded(item.getProduct());
         return item;
     }
 
-    @Transactional
-    public ListItem updateItem(UUID listId, UUID itemId, User user, UpdateListItemRequest req) {
-        ListItem item = getItemOrThrow(listId, itemId, user);
+    private ListItem update(ListItem item, UpdateListItemRequest req) {
         VersionCheck.check(req.getVersion(), item.getVersion());
+        // Resolve the target category before touching the item
+        final Category newCategory = req.getCategoryId() != null
+                ? categoryInWorkspaceOrThrow(req.getCategoryId(), item.getList())
+                : null;
+        // Take the list's sequence before touching the item: the bump would otherwise flush it mid-update
+        changeLog.itemChanged(item);
         if (req.getQuantity() != null) item.setQuantity(req.getQuantity());
         if (req.getUnit() != null) item.setUnit(req.getUnit());
         if (req.getNote() != null) item.setNote(req.getNote());
@@ -126,19 +312,16 @@ public class ListItemService {
         if (req.getItemImageUrl() != null) item.setItemImageUrl(req.getItemImageUrl().isBlank() ? null : req.getItemImageUrl());
         if (req.getIconId() != null) item.setIconId(req.getIconId().isBlank() ? null : req.getIconId());
         // Move item to a different category
-        if (req.getCategoryId() != null) {
-            GroceryList list = item.getList();
-            Category newCategory = categoryRepository.findById(req.getCategoryId())
-                    .orElseThrow(() -> new ResourceNotFoundException("הקטגוריה לא נמצאה"));
-            if (!newCategory.getWorkspace().getId().equals(list.getWorkspace().getId())) {
-                throw new IllegalArgumentException("הקטגוריה לא שייכת למרחב העבודה של הרשימה");
-            }
+        if (newCategory != null) {
             if (item.getProduct() != null) {
                 // Move the underlying product to the new category
                 Product product = item.getProduct();
                 if (!req.getCategoryId().equals(product.getCategory().getId())) {
+                    usageCountService.productMoved(product, product.getCategory(), newCategory);
                     product.setCategory(newCategory);
                     productRepository.save(product);
+                    productSuggestIndex.productSaved(product);
+                    changeLog.productChanged(product.getId());
                 }
             } else {
                 // Custom item with no product: create a product in the new category and link it
@@ -148,51 +331,55 @@ public class ListItemService {
                 String itemImageUrl = item.getItemImageUrl();
                 String itemNote = item.getNote();
                 Product product = productRepository.findByCategoryIdAndNameHe(req.getCategoryId(), itemName)
-                        .orElseGet(() -> productRepository.save(Product.builder()
-                                .category(newCategory)
-                                .nameHe(itemName)
-                                .defaultUnit(itemUnit)
-                                .iconId(itemIconId)
-                                .imageUrl(itemImageUrl)
-                                .note(itemNote)
-                                .build()));
+                        .orElseGet(() -> {
+                            Product created = productRepository.save(Product.builder()
+                                    .category(newCategory)
+                                    .nameHe(itemName)
+                                    .defaultUnit(itemUnit)
+                                    .iconId(itemIconId)
+                                    .imageUrl(itemImageUrl)
+                                    .note(itemNote)
+                                    .build());
+                            productSuggestIndex.productSaved(created);
+                            return created;
+                        });
                 item.setProduct(product);
                 item.setCategory(null);
                 item.setCustomNameHe(null);
+                usageCountService.itemAdded(product);
             }
         }
-        item = listItemRepository.save(item);
-        listEventPublisher.publishItemUpdated(listId, item, user);
-        return item;
+        return listItemRepository.save(item);
     }
 
-    @Transactional
-    public void removeItem(UUID listId, UUID itemId, User user) {
-        ListItem item = getItemOrThrow(listId, itemId, user);
-        String displayName = item.getDisplayName();
-        String quantityUnit = item.getQuantity() + " " + item.getUnit();
+    private void remove(ListItem item) {
+        if (item.getProduct() != null) usageCountService.itemRemoved(item.getProduct());
+        changeLog.itemRemoved(item);
         listItemRepository.delete(item);
-        listEventPublisher.publishItemRemoved(listId, itemId, displayName, quantityUnit, user);
     }
 
-    @Transactional
-    public void reorderItems(UUID listId, User user, List<UUID> itemIds) {
-        listAccessService.getListOrThrow(listId, user);
-        for (int i = 0; i < itemIds.size(); i++) {
-            ListItem item = listItemRepository.findById(itemIds.get(i))
-                    .orElseThrow(() -> new ResourceNotFoundException("הפריט לא נמצא"));
-            if (!item.getList().getId().equals(listId)) {
-                throw new IllegalArgumentException("הפריט לא שייך לרשימה");
-            }
-            if (item.getSortOrder() != i) {
-                item.setSortOrder(i);
-                listItemRepository.save(item);
-            }
+    private Category categoryInWorkspaceOrThrow(UUID categoryId, GroceryList list) {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("הקטגוריה לא נמצאה"));
+        if (!category.getWorkspace().getId().equals(list.getWorkspace().getId())) {
+            throw new IllegalArgumentException("הקטגוריה לא שייכת למרחב העבודה של הרשימה");
         }
+        return category;
+    }
+
+    /** Items of one list, stamping rows a renumber rewrites with this transaction's change sequence. */
+    private RankScope itemsOf(UUID listId) {
+        return new RankScope(ITEMS_OF_LIST, Map.of("listId", listId))
+                .touching("e.changeSeq = :changeSeq", Map.of("changeSeq", changeLog.nextSeq(listId)));
     }
 
-    private ListItem getItemOrThrow(UUID listId, UUID itemId, User user) {
+    private ListItem getItemOrThrow(UUID listId, UUID itemId, UserPrincipal user) {
         listAccessService.getListOrThrow(listId, user);
+        return findItemInList(listId, itemId);
+    }
+
+    private ListItem findItemInList(UUID listId, UUID itemId) {
+        if (itemId == null) throw new IllegalArgumentException("מזהה פריט חסר");
         ListItem item = listItemRepository.findById(itemId).orElseThrow(() -> new ResourceNotFoundException("הפריט לא נמצא"));
         if (!item.getList().getId().equals(listId)) throw new IllegalArgumentException("הפריט לא שייך לרשימה");
         return item;
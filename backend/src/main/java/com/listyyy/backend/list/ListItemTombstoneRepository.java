@@ -0,0 +1,41 @@
+package com.listyyy.backend.list;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface ListItemTombstoneRepository extends JpaRepository<ListItemTombstone, UUID> {
+
+    @Modifying
+    @Query("INSERT INTO ListItemTombstone (itemId, listId, changeSeq, deletedAt) " +
+           "VALUES (:itemId, :listId, :changeSeq, :deletedAt)")
+    void insert(UUID itemId, UUID listId, long changeSeq, Instant deletedAt);
+
+    /** Tombstones for every item of this product, stamped with each list's current sequence. */
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO ListItemTombstone (itemId, listId, changeSeq, deletedAt) " +
+           "SELECT i.id, l.id, l.changeSeq, :deletedAt FROM ListItem i JOIN i.list l WHERE i.product.id = :productId")
+    void insertForProduct(UUID productId, Instant deletedAt);
+
+    /** Tombstones for every item of a product in this category, stamped with each list's current sequence. */
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO ListItemTombstone (itemId, listId, changeSeq, deletedAt) " +
+           "SELECT i.id, l.id, l.changeSeq, :deletedAt FROM ListItem i JOIN i.list l " +
+           "WHERE i.product.id IN (SELECT p.id FROM Product p WHERE p.category.id = :categoryId)")
+    void insertForProductCategory(UUID categoryId, Instant deletedAt);
+
+    @Query("SELECT t.itemId FROM ListItemTombstone t WHERE t.listId = :listId AND t.changeSeq > :since")
+    List<UUID> findItemIdsRemovedSince(UUID listId, long since);
+
+    @Modifying
+    @Query("DELETE FROM ListItemTombstone t WHERE t.listId = :listId")
+    void deleteByListId(UUID listId);
+
+    @Modifying
+    @Query("DELETE FROM ListItemTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(Instant cutoff);
+}
@@ -0,0 +1,19 @@
+package com.listyyy.backend.list;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Answer to {@code GET /api/lists/{id}/items?since=}: apply {@code items} and {@code removedIds}, then send {@code seq} next time. */
+@Data
+@Builder
+public class ListItemsDeltaResponse {
+
+    private long seq;
+    /** When true, {@code items} is the whole list and replaces whatever the client holds. */
+    private boolean full;
+    private List<ListItemResponse> items;
+    private List<UUID> removedIds;
+}
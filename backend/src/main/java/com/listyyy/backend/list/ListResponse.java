@@ -16,8 +16,24 @@ public class ListResponse {
     private String iconId;
     private String imageUrl;
     private int sortOrder;
+    private String sortRank;
     private Instant createdAt;
     private Instant updatedAt;
     /** Optimistic-locking version. */
     private Long version;
+
+    public static ListResponse from(GroceryList list) {
+        return ListResponse.builder()
+                .id(list.getId())
+                .name(list.getName())
+                .workspaceId(list.getWorkspace().getId())
+                .iconId(list.getIconId())
+                .imageUrl(list.getImageUrl())
+                .sortOrder(list.getSortOrder())
+                .sortRank(list.getSortRank())
+                .createdAt(list.getCreatedAt())
+                .updatedAt(list.getUpdatedAt())
+                .version(list.getVersion())
+                .build();
+    }
 }
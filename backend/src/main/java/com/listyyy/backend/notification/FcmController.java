@@ -1,6 +1,7 @@
 package com.listyyy.backend.notification;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.auth.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -12,14 +13,15 @@ import org.springframework.web.bind.annotation.*;
 public class FcmController {
 
     private final FcmTokenRepository fcmTokenRepository;
+    private final UserRepository userRepository;
 
     @PostMapping("/register")
     public ResponseEntity<Void> register(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody FcmRegisterRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        FcmToken existing = fcmTokenRepository.findByUserId(user.getId()).stream()
+        FcmToken existing = fcmTokenRepository.findByUserId(user.id()).stream()
                 .filter(t -> t.getToken().equals(req.getToken()) || (req.getDeviceId() != null && req.getDeviceId().equals(t.getDeviceId())))
                 .findFirst()
                 .orElse(null);
@@ -29,7 +31,7 @@ public class FcmController {
             fcmTokenRepository.save(existing);
         } else {
             FcmToken token = FcmToken.builder()
-                    .user(user)
+                    .user(userRepository.getReferenceById(user.id()))
                     .token(req.getToken())
                     .deviceId(req.getDeviceId())
                     .build();
@@ -1,60 +1,107 @@
 package com.listyyy.backend.notification;
 
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.MessagingErrorCode;
-import com.google.firebase.messaging.Notification;
-import com.listyyy.backend.list.GroceryList;
-import com.listyyy.backend.list.GroceryListRepository;
-import com.listyyy.backend.workspace.WorkspaceMemberRepository;
-import lombok.RequiredArgsConstructor;
+import com.listyyy.backend.websocket.LiveSubscriptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Phone notifications to a list's members who do not have it open ({@link LiveSubscriptions}): their tokens
+ * in one query, sent through {@link PushSender} in batches of up to {@code listyyy.push.batch-size}, and the
+ * tokens the service no longer knows deleted in one statement. When to send is up to {@link PushDigester}.
+ * Metrics: {@code listyyy.push.sent} and {@code listyyy.push.failed} (per device).
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FcmService {
 
     private final FcmTokenRepository fcmTokenRepository;
-    private final WorkspaceMemberRepository workspaceMemberRepository;
-    private final GroceryListRepository groceryListRepository;
+    private final PushSender pushSender;
+    private final LiveSubscriptions liveSubscriptions;
+    private final int batchSize;
+    private final Counter sent;
+    private final Counter failed;
 
-    @Async
+    public FcmService(FcmTokenRepository fcmTokenRepository, PushSender pushSender,
+                      LiveSubscriptions liveSubscriptions, MeterRegistry meterRegistry,
+                      @Value("${listyyy.push.batch-size:500}") int batchSize) {
+        this.fcmTokenRepository = fcmTokenRepository;
+        this.pushSender = pushSender;
+        this.liveSubscriptions = liveSubscriptions;
+        this.batchSize = Math.max(1, Math.min(batchSize, PushSender.MAX_BATCH));
+        sent = Counter.builder("listyyy.push.sent")
+                .description("Devices a push notification was delivered to")
+                .register(meterRegistry);
+        failed = Counter.builder("listyyy.push.failed")
+                .description("Devices a push notification could not be delivered to")
+                .register(meterRegistry);
+    }
+
+    @Async("pushExecutor")
     public void notifyListUpdated(UUID listId, UUID excludeUserId, String title, String body) {
-        if (FirebaseApp.getApps().isEmpty()) return;
-
-        GroceryList list = groceryListRepository.findById(listId).orElse(null);
-        if (list == null) return;
-        UUID workspaceId = list.getWorkspace().getId();
-        workspaceMemberRepository.findByWorkspaceId(workspaceId).stream()
-                .filter(m -> !m.getUserId().equals(excludeUserId))
-                .flatMap(m -> fcmTokenRepository.findByUserId(m.getUserId()).stream())
-                .forEach(token -> {
-                    try {
-                        sendFcm(token.getToken(), title, body);
-                    } catch (FirebaseMessagingException e) {
-                        log.warn("Failed to send FCM to token {}: {}", token.getId(), e.getMessage());
-                        if (e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
-                            fcmTokenRepository.delete(token);
-                        }
-                    }
-                });
+        deliverListUpdated(listId, excludeUserId, title, body);
+    }
+
+    /** {@link #notifyListUpdated} on the calling thread; returns how many devices accepted the notification. */
+    public int deliverListUpdated(UUID listId, UUID excludeUserId, String title, String body) {
+        if (!pushSender.isEnabled()) return 0;
+        Set<UUID> live = liveSubscriptions.usersOnList(listId);
+        List<String> tokens = fcmTokenRepository.findRecipientsOfList(listId).stream()
+                .filter(r -> !r.userId().equals(excludeUserId) && !live.contains(r.userId()))
+                .map(RecipientToken::token)
+                .toList();
+        List<String> unregistered = new ArrayList<>();
+        int delivered = send(tokens, title, body, unregistered);
+        deleteUnregistered(unregistered);
+        return delivered;
+    }
+
+    /** A {@link PushDigester} digest: each member's devices get the text that leaves out their own changes. */
+    @Async("pushExecutor")
+    public void notifyDigest(ListDigest digest) {
+        deliverDigest(digest);
+    }
+
+    /** {@link #notifyDigest} on the calling thread. */
+    public void deliverDigest(ListDigest digest) {
+        if (!pushSender.isEnabled()) return;
+        // Members who get the same text share the multicasts
+        Map<String, List<String>> tokensByText = new LinkedHashMap<>();
+        for (RecipientToken recipient : fcmTokenRepository.findRecipientsOfList(digest.listId)) {
+            String text = digest.textFor(recipient.userId());
+            if (text != null) tokensByText.computeIfAbsent(text, t -> new ArrayList<>()).add(recipient.token());
+        }
+        List<String> unregistered = new ArrayList<>();
+        tokensByText.forEach((text, tokens) -> send(tokens, digest.title, text, unregistered));
+        deleteUnregistered(unregistered);
+    }
+
+    private int send(List<String> tokens, String title, String body, List<String> unregistered) {
+        int delivered = 0;
+        for (int from = 0; from < tokens.size(); from += batchSize) {
+            PushSender.PushResult result = pushSender.send(
+                    tokens.subList(from, Math.min(from + batchSize, tokens.size())), title, body);
+            delivered += result.sent();
+            failed.increment(result.failed());
+            unregistered.addAll(result.unregistered());
+        }
+        sent.increment(delivered);
+        return delivered;
     }
 
-    private void sendFcm(String fcmToken, String title, String body) throws FirebaseMessagingException {
-        Message message = Message.builder()
-                .setToken(fcmToken)
-                .setNotification(Notification.builder()
-                        .setTitle(title)
-                        .setBody(body)
-                        .build())
-                .build();
-        FirebaseMessaging.getInstance().send(message);
+    private void deleteUnregistered(List<String> unregistered) {
+        if (unregistered.isEmpty()) return;
+        int deleted = fcmTokenRepository.deleteByTokenIn(unregistered);
+        log.info("Deleted {} unregistered FCM tokens", deleted);
     }
 }
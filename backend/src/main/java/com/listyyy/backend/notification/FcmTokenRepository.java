@@ -1,11 +1,28 @@
 package com.listyyy.backend.notification;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface FcmTokenRepository extends JpaRepository<FcmToken, UUID> {
 
     List<FcmToken> findByUserId(UUID userId);
+
+    /** Device tokens of all the list's workspace members, and whose each is. */
+    @Query("SELECT DISTINCT new com.listyyy.backend.notification.RecipientToken(m.userId, t.token) FROM GroceryList l " +
+            "JOIN WorkspaceMember m ON m.workspaceId = l.workspace.id " +
+            "JOIN FcmToken t ON t.user.id = m.userId " +
+            "WHERE l.id = :listId")
+    List<RecipientToken> findRecipientsOfList(@Param("listId") UUID listId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FcmToken t WHERE t.token IN :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
 }
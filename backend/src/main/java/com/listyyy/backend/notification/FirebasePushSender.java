@@ -0,0 +1,58 @@
+package com.listyyy.backend.notification;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** FCM multicast: one request per batch, with a result for each token. */
+@Component
+@ConditionalOnProperty(name = "listyyy.push.sender", havingValue = "firebase", matchIfMissing = true)
+@Slf4j
+public class FirebasePushSender implements PushSender {
+
+    @Override
+    public boolean isEnabled() {
+        return !FirebaseApp.getApps().isEmpty();
+    }
+
+    @Override
+    public PushResult send(List<String> tokens, String title, String body) {
+        MulticastMessage message = MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(title)
+                        .setBody(body)
+                        .build())
+                .build();
+        BatchResponse response;
+        try {
+            response = FirebaseMessaging.getInstance().sendEachForMulticast(message);
+        } catch (FirebaseMessagingException e) {
+            log.warn("Failed to send FCM to {} tokens: {}", tokens.size(), e.getMessage());
+            return new PushResult(0, tokens.size(), List.of());
+        }
+        List<String> unregistered = new ArrayList<>();
+        List<SendResponse> responses = response.getResponses();
+        for (int i = 0; i < responses.size(); i++) {
+            FirebaseMessagingException e = responses.get(i).getException();
+            if (e == null) continue;
+            if (e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
+                unregistered.add(tokens.get(i));
+            } else {
+                log.warn("Failed to send FCM to a token: {}", e.getMessage());
+            }
+        }
+        return new PushResult(response.getSuccessCount(), response.getFailureCount(), unregistered);
+    }
+}
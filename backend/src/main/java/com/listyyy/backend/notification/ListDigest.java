@@ -0,0 +1,87 @@
+package com.listyyy.backend.notification;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * The changes to one list that a digest push sums up, by author. Each recipient's text leaves out their own
+ * changes; a single change keeps its original text. Members who had the list open through all of them get none.
+ */
+class ListDigest {
+
+    final UUID listId;
+    final String title;
+    final long firstAt;
+    long lastAt;
+    int pushes;
+    private final Map<UUID, Author> authors = new LinkedHashMap<>();
+    /** Members subscribed to the list's topic at every change so far. */
+    private Set<UUID> liveThroughout;
+
+    ListDigest(UUID listId, String title, long now) {
+        this.listId = listId;
+        this.title = title;
+        this.firstAt = now;
+    }
+
+    void add(PushRequest push, Set<UUID> live, long now) {
+        if (liveThroughout == null) {
+            liveThroughout = new HashSet<>(live);
+        } else {
+            liveThroughout.retainAll(live);
+        }
+        Author author = authors.computeIfAbsent(push.authorId(), id -> new Author(push.authorLabel()));
+        author.added += push.added();
+        author.updated += push.updated();
+        author.removed += push.removed();
+        author.pushes++;
+        author.lastBody = push.body();
+        pushes++;
+        lastAt = now;
+    }
+
+    /** The text for a member, or null when every change in it is theirs or they saw them all live. */
+    String textFor(UUID recipientId) {
+        if (liveThroughout != null && liveThroughout.contains(recipientId)) return null;
+        Author only = null;
+        int pushesFromOthers = 0;
+        StringJoiner text = new StringJoiner(" · ");
+        for (Map.Entry<UUID, Author> e : authors.entrySet()) {
+            if (e.getKey().equals(recipientId)) continue;
+            only = e.getValue();
+            pushesFromOthers += only.pushes;
+            text.add(only.summary());
+        }
+        if (pushesFromOthers == 0) return null;
+        return pushesFromOthers == 1 ? only.lastBody : text.toString();
+    }
+
+    private static class Author {
+        final String label;
+        int added;
+        int updated;
+        int removed;
+        int pushes;
+        String lastBody;
+
+        Author(String label) {
+            this.label = label;
+        }
+
+        String summary() {
+            StringJoiner parts = new StringJoiner(", ", label + " ", "");
+            if (added > 0) parts.add("הוסיף " + items(added));
+            if (updated > 0) parts.add("עדכן " + items(updated));
+            if (removed > 0) parts.add("הסיר " + items(removed));
+            return parts.toString();
+        }
+
+        private static String items(int count) {
+            return count == 1 ? "פריט אחד" : count + " פריטים";
+        }
+    }
+}
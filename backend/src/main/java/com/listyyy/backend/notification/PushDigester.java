@@ -0,0 +1,134 @@
+package com.listyyy.backend.notification;
+
+import com.listyyy.backend.websocket.LiveSubscriptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds a list's pushes until it has been quiet for {@code listyyy.push.digest.quiet-ms} (or
+ * {@code max-delay-ms} has passed since the first), then sends each member one push that sums them up,
+ * such as "Dana הוסיף 20 פריטים", unless they had the list open all along. {@code quiet-ms=0} sends every push as it comes. At most
+ * {@code max-lists} lists are held; pushes for more go out right away.
+ * <p>
+ * On shutdown what is held is sent on the closing thread, as are pushes that arrive after it (the
+ * {@link com.listyyy.backend.websocket.EventDispatcher} still flushes its coalescer): the push executor outlives
+ * this bean, but its tasks may not run before the process exits.
+ * <p>
+ * Metrics: {@code listyyy.push.digest.pending} (lists held) and {@code listyyy.push.digest.suppressed}
+ * (pushes merged into another).
+ */
+@Component
+@DependsOn("pushExecutor")
+public class PushDigester {
+
+    private final FcmService fcmService;
+    private final LiveSubscriptions liveSubscriptions;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final int maxLists;
+    private final Map<UUID, ListDigest> pending = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskScheduler scheduler;
+    private final Counter suppressed;
+    private volatile boolean closed;
+
+    public PushDigester(FcmService fcmService, LiveSubscriptions liveSubscriptions, MeterRegistry meterRegistry,
+                        @Value("${listyyy.push.digest.quiet-ms:3000}") long quietMs,
+                        @Value("${listyyy.push.digest.max-delay-ms:30000}") long maxDelayMs,
+                        @Value("${listyyy.push.digest.max-lists:10000}") int maxLists) {
+        this.fcmService = fcmService;
+        this.liveSubscriptions = liveSubscriptions;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(quietMs, maxDelayMs));
+        this.maxLists = maxLists;
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("push-digest-");
+        scheduler.setPoolSize(1);
+        scheduler.initialize();
+        Gauge.builder("listyyy.push.digest.pending", pending, Map::size)
+                .description("Lists with pushes held for a digest")
+                .register(meterRegistry);
+        suppressed = Counter.builder("listyyy.push.digest.suppressed")
+                .description("List pushes not sent because they were merged into a digest")
+                .register(meterRegistry);
+    }
+
+    public void add(PushRequest push) {
+        if (closed) {
+            fcmService.deliverListUpdated(push.listId(), push.authorId(), push.title(), push.body());
+            return;
+        }
+        if (quietNanos <= 0 || (pending.size() >= maxLists && !pending.containsKey(push.listId()))) {
+            fcmService.notifyListUpdated(push.listId(), push.authorId(), push.title(), push.body());
+            return;
+        }
+        long now = System.nanoTime();
+        Set<UUID> live = liveSubscriptions.usersOnList(push.listId());
+        pending.compute(push.listId(), (listId, digest) -> {
+            if (digest == null) {
+                digest = new ListDigest(listId, push.title(), now);
+                schedule(listId, quietNanos);
+            }
+            digest.add(push, live, now);
+            return digest;
+        });
+        // Closed meanwhile: the drain may have missed this list
+        if (closed) sendNow(push.listId());
+    }
+
+    /** Sends the list's digest if it has been quiet long enough, else checks again when it would be. */
+    private void check(UUID listId) {
+        ListDigest[] due = new ListDigest[1];
+        pending.computeIfPresent(listId, (id, digest) -> {
+            long now = System.nanoTime();
+            long wait = Math.min(digest.lastAt + quietNanos, digest.firstAt + maxDelayNanos) - now;
+            if (wait > 0) {
+                schedule(id, wait);
+                return digest;
+            }
+            due[0] = digest;
+            return null;
+        });
+        if (due[0] != null) send(due[0]);
+    }
+
+    private void send(ListDigest digest) {
+        suppressed.increment(digest.pushes - 1);
+        fcmService.notifyDigest(digest);
+    }
+
+    private void sendNow(UUID listId) {
+        ListDigest digest = pending.remove(listId);
+        if (digest == null) return;
+        suppressed.increment(digest.pushes - 1);
+        fcmService.deliverDigest(digest);
+    }
+
+    private void schedule(UUID listId, long delayNanos) {
+        try {
+            scheduler.schedule(() -> check(listId), scheduler.getClock().instant().plus(Duration.ofNanos(delayNanos)));
+        } catch (TaskRejectedException e) {
+            // Shutting down: the digest is sent by the drain, or by add once it sees closed
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        scheduler.shutdown();
+        pending.keySet().forEach(this::sendNow);
+    }
+}
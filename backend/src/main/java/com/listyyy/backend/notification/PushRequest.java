@@ -0,0 +1,10 @@
+package com.listyyy.backend.notification;
+
+import java.util.UUID;
+
+/**
+ * A phone notification about a change to a list, for its members other than the author. The counts let
+ * {@link PushDigester} sum several up in one push.
+ */
+public record PushRequest(UUID listId, UUID authorId, String authorLabel, String title, String body,
+                          int added, int updated, int removed) {}
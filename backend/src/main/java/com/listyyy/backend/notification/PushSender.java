@@ -0,0 +1,17 @@
+package com.listyyy.backend.notification;
+
+import java.util.List;
+
+/** Sends one notification to a batch of device tokens, in as few round trips as the service allows. */
+public interface PushSender {
+
+    /** The most tokens one {@link #send} may be given (FCM's multicast limit). */
+    int MAX_BATCH = 500;
+
+    boolean isEnabled();
+
+    PushResult send(List<String> tokens, String title, String body);
+
+    /** @param unregistered tokens the service reported as no longer registered, to be deleted */
+    record PushResult(int sent, int failed, List<String> unregistered) {}
+}
@@ -0,0 +1,6 @@
+package com.listyyy.backend.notification;
+
+import java.util.UUID;
+
+/** A device token with the member it belongs to. */
+public record RecipientToken(UUID userId, String token) {}
@@ -0,0 +1,40 @@
+package com.listyyy.backend.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Accepts every token without calling Firebase ({@code listyyy.push.sender=stub}), after
+ * {@code listyyy.push.stub.latency-ms} per batch as a stand-in for the round trip: for load tests and benchmarks.
+ */
+@Component
+@ConditionalOnProperty(name = "listyyy.push.sender", havingValue = "stub")
+public class StubPushSender implements PushSender {
+
+    private final long latencyMs;
+
+    public StubPushSender(@Value("${listyyy.push.stub.latency-ms:0}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public PushResult send(List<String> tokens, String title, String body) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new PushResult(0, tokens.size(), List.of());
+            }
+        }
+        return new PushResult(tokens.size(), 0, List.of());
+    }
+}
@@ -0,0 +1,14 @@
+package com.listyyy.backend.ordering;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class MoveRequest {
+
+    /** Place directly after this row; null moves it to the start. */
+    private UUID afterId;
+
+    private Long version;
+}
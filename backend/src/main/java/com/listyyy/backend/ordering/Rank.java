@@ -0,0 +1,81 @@
+package com.listyyy.backend.ordering;
+
+/**
+ * Lexicographic sort keys. There is always room for a new key between two others,
+ * so moving a row rewrites only that row.
+ * <p>
+ * A rank is base-36 ({@code [0-9a-z]}) and compares byte-wise (the columns use the "C" collation):
+ * an 8-digit integer part, followed by fraction digits once something is inserted between neighbours.
+ * A fraction never ends in '0', which keeps a gap open after every rank.
+ */
+public final class Rank {
+
+    /** Longest rank a column holds; past this the scope has to be renumbered. */
+    public static final int MAX_LENGTH = 64;
+
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+    private static final int INTEGER_WIDTH = 8;
+
+    private Rank() {}
+
+    /** Rank for the given 0-based position when renumbering a whole scope. */
+    public static String initial(int position) {
+        return integer(position + 1L);
+    }
+
+    /**
+     * A rank strictly between {@code lo} and {@code hi}; {@code null} bounds mean start / end of the scope.
+     * Returns {@code null} when there is no room (equal or inverted bounds, or the key would grow past
+     * {@link #MAX_LENGTH}); the caller then renumbers the scope.
+     */
+    public static String between(String lo, String hi) {
+        if (hi == null) return after(lo);
+        if (lo == null) return before(hi);
+        if (lo.compareTo(hi) >= 0) return null;
+        return midpoint(lo, hi);
+    }
+
+    /** Next rank after {@code lo} (append): bumps the integer part and drops any fraction. */
+    public static String after(String lo) {
+        if (lo == null) return initial(0);
+        if (lo.length() < INTEGER_WIDTH) return midpoint(lo, null);
+        return integer(Long.parseLong(lo.substring(0, INTEGER_WIDTH), BASE) + 1);
+    }
+
+    /** Rank before {@code hi} (prepend): steps the integer part down while it stays above zero. */
+    public static String before(String hi) {
+        if (hi == null) return initial(0);
+        if (hi.length() >= INTEGER_WIDTH) {
+            long n = Long.parseLong(hi.substring(0, INTEGER_WIDTH), BASE);
+            if (n > 1) return integer(n - 1);
+        }
+        return midpoint("", hi);
+    }
+
+    /** Digit-by-digit midpoint; {@code hi == null} means unbounded above. */
+    private static String midpoint(String lo, String hi) {
+        StringBuilder sb = new StringBuilder();
+        boolean upperOpen = hi == null;
+        for (int i = 0; ; i++) {
+            int l = i < lo.length() ? Character.digit(lo.charAt(i), BASE) : 0;
+            int h;
+            if (upperOpen) h = BASE;
+            else if (i < hi.length()) h = Character.digit(hi.charAt(i), BASE);
+            else return null; // the prefix already equals hi: nothing longer sorts below it
+            if (h - l > 1) {
+                sb.append(DIGITS.charAt((l + h) / 2));
+                break;
+            }
+            sb.append(DIGITS.charAt(l));
+            // Once the prefix drops below hi's, only lo bounds the remaining digits
+            if (h > l) upperOpen = true;
+        }
+        return sb.length() <= MAX_LENGTH ? sb.toString() : null;
+    }
+
+    private static String integer(long n) {
+        String digits = Long.toString(n, BASE);
+        return "0".repeat(Math.max(0, INTEGER_WIDTH - digits.length())) + digits;
+    }
+}
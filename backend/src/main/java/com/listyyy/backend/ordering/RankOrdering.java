@@ -0,0 +1,125 @@
+package com.listyyy.backend.ordering;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Rank maintenance for any entity with {@code id}, {@code sortRank}, {@code createdAt} and {@code version}.
+ * The rows ordered together are described by a {@link RankScope}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RankOrdering {
+
+    public static final int MAX_IDS = 1000;
+
+    private final EntityManager entityManager;
+
+    /** Rank for appending a new row at the end of the scope. */
+    public String rankAtEnd(Class<?> entity, RankScope scope) {
+        Query q = entityManager.createQuery(
+                "SELECT MAX(e.sortRank) FROM " + entity.getSimpleName() + " e WHERE " + scope.condition());
+        scope.params().forEach(q::setParameter);
+        return Rank.after((String) q.getSingleResult());
+    }
+
+    /**
+     * Rank that places row {@code id} directly after {@code afterId} (null: at the start). Reads two ranks;
+     * only when there is no room left between them is the rest of the scope renumbered, once.
+     * Throws {@code outOfScope} when {@code afterId} is not in the scope.
+     */
+    public String rankAfter(Class<?> entity, UUID id, UUID afterId, RankScope scope,
+                            Supplier<? extends RuntimeException> outOfScope) {
+        if (id.equals(afterId)) throw new IllegalArgumentException("לא ניתן למקם פריט אחרי עצמו");
+        String rank = Rank.between(rankOf(entity, afterId, scope, outOfScope), nextRank(entity, id, afterId, scope));
+        if (rank != null) return rank;
+        // Equal neighbours or keys at full length: spread everything else out and try again
+        List<UUID> others = new ArrayList<>(idsInOrder(entity, scope));
+        others.remove(id);
+        reorder(entity, others, scope, outOfScope);
+        return Rank.between(rankOf(entity, afterId, scope, outOfScope), nextRank(entity, id, afterId, scope));
+    }
+
+    /**
+     * Full resort as one set-based UPDATE: each of {@code ids} gets {@link Rank#initial} of its position.
+     * Every id must be in the scope, otherwise {@code outOfScope} is thrown and nothing is written.
+     * Rows already at their rank keep their version. Managed copies of the rows are not refreshed.
+     * Returns how many rows were rewritten.
+     */
+    public int reorder(Class<?> entity, List<UUID> ids, RankScope scope, Supplier<? extends RuntimeException> outOfScope) {
+        if (ids == null || ids.isEmpty()) return 0;
+        if (ids.size() > MAX_IDS) throw new IllegalArgumentException("יותר מדי פריטים בבקשה אחת");
+        if (new HashSet<>(ids).size() != ids.size()) throw new IllegalArgumentException("מזהה מופיע יותר מפעם אחת");
+        String name = entity.getSimpleName();
+
+        Query count = entityManager.createQuery(
+                "SELECT COUNT(e) FROM " + name + " e WHERE e.id IN :ids AND (" + scope.condition() + ")");
+        count.setParameter("ids", ids);
+        scope.params().forEach(count::setParameter);
+        if (((Number) count.getSingleResult()).longValue() != ids.size()) throw outOfScope.get();
+
+        StringBuilder rankCase = new StringBuilder("CASE e.id");
+        for (int i = 0; i < ids.size(); i++) {
+            rankCase.append(" WHEN :id").append(i).append(" THEN :rank").append(i);
+        }
+        rankCase.append(" END");
+        Query update = entityManager.createQuery(
+                "UPDATE " + name + " e SET e.sortRank = " + rankCase + ", e.version = e.version + 1"
+                + (scope.touch() != null ? ", " + scope.touch() : "")
+                + " WHERE e.id IN :ids AND e.sortRank <> " + rankCase);
+        update.setParameter("ids", ids);
+        scope.touchParams().forEach(update::setParameter);
+        for (int i = 0; i < ids.size(); i++) {
+            update.setParameter("id" + i, ids.get(i));
+            update.setParameter("rank" + i, Rank.initial(i));
+        }
+        return update.executeUpdate();
+    }
+
+    private String rankOf(Class<?> entity, UUID id, RankScope scope, Supplier<? extends RuntimeException> outOfScope) {
+        if (id == null) return null;
+        Query q = entityManager.createQuery("SELECT e.sortRank FROM " + entity.getSimpleName()
+                + " e WHERE e.id = :rowId AND (" + scope.condition() + ")");
+        q.setParameter("rowId", id);
+        scope.params().forEach(q::setParameter);
+        List<?> rows = q.getResultList();
+        if (rows.isEmpty()) throw outOfScope.get();
+        return (String) rows.get(0);
+    }
+
+    /** Smallest rank after {@code afterId}'s (from the start when null), ignoring the moved row itself. */
+    private String nextRank(Class<?> entity, UUID id, UUID afterId, RankScope scope) {
+        Map<String, Object> all = new HashMap<>(scope.params());
+        all.put("rowId", id);
+        String jpql = "SELECT MIN(e.sortRank) FROM " + entity.getSimpleName()
+                + " e WHERE e.id <> :rowId AND (" + scope.condition() + ")";
+        if (afterId != null) {
+            // ">=" so a tie with the anchor comes back equal and forces a renumber
+            jpql += " AND e.id <> :afterId AND e.sortRank >= (SELECT a.sortRank FROM "
+                    + entity.getSimpleName() + " a WHERE a.id = :afterId)";
+            all.put("afterId", afterId);
+        }
+        Query q = entityManager.createQuery(jpql);
+        all.forEach(q::setParameter);
+        return (String) q.getSingleResult();
+    }
+
+    private List<UUID> idsInOrder(Class<?> entity, RankScope scope) {
+        Query q = entityManager.createQuery("SELECT e.id FROM " + entity.getSimpleName()
+                + " e WHERE " + scope.condition() + " ORDER BY e.sortRank, e.createdAt");
+        scope.params().forEach(q::setParameter);
+        @SuppressWarnings("unchecked")
+        List<UUID> ids = q.getResultList();
+        return ids;
+    }
+}
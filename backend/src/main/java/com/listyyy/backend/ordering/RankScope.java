@@ -0,0 +1,19 @@
+package com.listyyy.backend.ordering;
+
+import java.util.Map;
+
+/**
+ * Rows ordered together: a JPQL condition on alias {@code e} with its named parameters.
+ * {@code touch} optionally holds extra assignments applied to every row a renumber rewrites.
+ */
+public record RankScope(String condition, Map<String, Object> params, String touch, Map<String, Object> touchParams) {
+
+    public RankScope(String condition, Map<String, Object> params) {
+        this(condition, params, null, Map.of());
+    }
+
+    /** Same scope, also setting {@code assignments} (JPQL on alias {@code e}) on renumbered rows. */
+    public RankScope touching(String assignments, Map<String, Object> assignmentParams) {
+        return new RankScope(condition, params, assignments, assignmentParams);
+    }
+}
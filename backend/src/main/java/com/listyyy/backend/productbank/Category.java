@@ -1,5 +1,6 @@
 package com.listyyy.backend.productbank;
 
+import com.listyyy.backend.ordering.Rank;
 import com.listyyy.backend.workspace.Workspace;
 import jakarta.persistence.*;
 import lombok.*;
@@ -38,6 +39,11 @@ public class Category {
     @Builder.Default
     private int sortOrder = 0;
 
+    /** Position key, see {@link Rank}; services assign the real value on create. */
+    @Column(name = "sort_rank", nullable = false, length = Rank.MAX_LENGTH)
+    @Builder.Default
+    private String sortRank = Rank.initial(0);
+
     @Version
     private Long version;
 
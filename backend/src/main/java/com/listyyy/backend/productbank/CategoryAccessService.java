@@ -1,6 +1,6 @@
 package com.listyyy.backend.productbank;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.ResourceNotFoundException;
 import com.listyyy.backend.workspace.WorkspaceAccessService;
@@ -20,29 +20,32 @@ public class CategoryAccessService {
     private final CategoryRepository categoryRepository;
     private final WorkspaceAccessService workspaceAccessService;
 
-    public boolean canAccess(User user, UUID categoryId) {
+    public boolean canAccess(UserPrincipal user, UUID categoryId) {
         if (user == null) return false;
         return categoryRepository.findById(categoryId)
                 .map(c -> workspaceAccessService.canAccess(user, c.getWorkspace().getId()))
                 .orElse(false);
     }
 
-    public boolean canEdit(User user, UUID categoryId) {
+    public boolean canEdit(UserPrincipal user, UUID categoryId) {
         return canAccess(user, categoryId);
     }
 
     /** Only workspace owner can delete categories. */
-    public boolean isWorkspaceOwner(User user, UUID categoryId) {
+    public boolean isWorkspaceOwner(UserPrincipal user, UUID categoryId) {
         if (user == null) return false;
         return categoryRepository.findById(categoryId)
                 .map(c -> workspaceAccessService.isOwner(user, c.getWorkspace().getId()))
                 .orElse(false);
     }
 
-    public Category getCategoryOrThrow(UUID categoryId, User user) {
-        Category category = categoryRepository.findById(categoryId)
+    /** One query for the category and the caller's role; later checks in the request hit the caches. */
+    public Category getCategoryOrThrow(UUID categoryId, UserPrincipal user) {
+        if (user == null) throw new AccessDeniedException("אין גישה");
+        Object[] row = categoryRepository.findWithMemberRole(categoryId, user.id()).stream().findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("הקטגוריה לא נמצאה"));
-        if (!canAccess(user, categoryId)) throw new AccessDeniedException("אין גישה");
+        Category category = (Category) row[0];
+        workspaceAccessService.requireMember(user, category.getWorkspace().getId(), (String) row[1]);
         return category;
     }
 }
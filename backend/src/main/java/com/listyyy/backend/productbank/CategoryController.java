@@ -1,9 +1,15 @@
 package com.listyyy.backend.productbank;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.CollectionVersion;
+import com.listyyy.backend.ETags;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.VersionCheck;
+import com.listyyy.backend.list.ListChangeLog;
 import com.listyyy.backend.list.ListItemRepository;
+import com.listyyy.backend.ordering.MoveRequest;
+import com.listyyy.backend.ordering.RankOrdering;
+import com.listyyy.backend.ordering.RankScope;
 import com.listyyy.backend.websocket.WorkspaceEvent;
 import com.listyyy.backend.websocket.WorkspaceEventPublisher;
 import com.listyyy.backend.workspace.Workspace;
@@ -11,6 +17,7 @@ import com.listyyy.backend.workspace.WorkspaceAccessService;
 import com.listyyy.backend.workspace.WorkspaceRepository;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,56 +26,72 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
 public class CategoryController {
 
+    /** Categories are ordered per user across all of their workspaces. */
+    private static final String CATEGORIES_OF_USER = "e.workspace.id IN (SELECT wm.workspaceId FROM "
+            + "com.listyyy.backend.workspace.WorkspaceMember wm WHERE wm.userId = :userId)";
+
     private final CategoryRepository categoryRepository;
     private final CategoryAccessService categoryAccessService;
     private final ProductRepository productRepository;
     private final ListItemRepository listItemRepository;
+    private final ListChangeLog listChangeLog;
+    private final UsageCountService usageCountService;
+    private final ProductSuggestIndex productSuggestIndex;
     private final WorkspaceRepository workspaceRepository;
     private final WorkspaceAccessService workspaceAccessService;
     private final WorkspaceEventPublisher workspaceEventPublisher;
+    private final RankOrdering rankOrdering;
 
     @GetMapping
     public ResponseEntity<List<CategoryDto>> list(
             @RequestParam(required = false) UUID workspaceId,
-            @AuthenticationPrincipal User user
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        List<Category> categories;
+        CollectionVersion version;
         if (workspaceId != null) {
             workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
-            categories = categoryRepository.findByWorkspaceId(workspaceId);
+            version = categoryRepository.findVersionByWorkspaceId(workspaceId);
         } else {
-            categories = categoryRepository.findVisibleToUser(user.getId());
+            version = categoryRepository.findVersionVisibleToUser(user.id());
         }
-        Map<UUID, Long> addCountByCategory = getCategoryAddCounts();
-        List<CategoryDto> body = categories.stream()
-                .map(c -> toDto(c, addCountByCategory.getOrDefault(c.getId(), 0L)))
-                .sorted((a, b) -> Integer.compare(a.getSortOrder(), b.getSortOrder()))
-                .toList();
-        return ResponseEntity.ok(body);
+        return ETags.respond(ifNoneMatch, version.etag(), () -> {
+            List<Category> categories = workspaceId != null
+                    ? categoryRepository.findByWorkspaceId(workspaceId)
+                    : categoryRepository.findVisibleToUser(user.id());
+            Map<UUID, Long> addCountByCategory = usageCountService.categoryCounts(
+                    categories.stream().map(Category::getId).toList());
+            // Already in rank order from the query
+            return categories.stream()
+                    .map(c -> toDto(c, addCountByCategory.getOrDefault(c.getId(), 0L)))
+                    .toList();
+        });
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDto> get(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<CategoryDto> get(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
+    ) {
         if (user == null) return ResponseEntity.status(401).build();
-        if (categoryRepository.findById(id).isEmpty()) return ResponseEntity.notFound().build();
         Category c = categoryAccessService.getCategoryOrThrow(id, user);
-        Map<UUID, Long> addCountByCategory = getCategoryAddCounts();
-        return ResponseEntity.ok(toDto(c, addCountByCategory.getOrDefault(c.getId(), 0L)));
+        long addCount = usageCountService.categoryCount(c.getId());
+        return ETags.respond(ifNoneMatch, ETags.of(c.getVersion(), addCount), () -> toDto(c, addCount));
     }
 
     @PostMapping
     @Transactional
     public ResponseEntity<CategoryDto> create(
             @Valid @RequestBody CreateCategoryRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         UUID wsId = req.getWorkspaceId();
@@ -85,17 +108,19 @@ public class CategoryController {
                 .iconId(req.getIconId())
                 .imageUrl(req.getImageUrl())
                 .sortOrder(sortOrder)
+                .sortRank(rankOrdering.rankAtEnd(Category.class, categoriesOf(user)))
                 .build();
         c = categoryRepository.save(c);
         workspaceEventPublisher.publish(wsId, WorkspaceEvent.EntityType.CATEGORY,
-                WorkspaceEvent.Action.CREATED, c.getId(), c.getNameHe(), user);
+                WorkspaceEvent.Action.CREATED, c.getId(), c.getNameHe(), toDto(c, 0L), c.getVersion(), user);
         return ResponseEntity.ok(toDto(c, 0L));
     }
 
     @PatchMapping("/{id}")
+    @Transactional
     public ResponseEntity<CategoryDto> update(
             @PathVariable UUID id,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody UpdateCategoryRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
@@ -112,34 +137,50 @@ public class CategoryController {
         if (req.getIconId() != null) c.setIconId(req.getIconId().isBlank() ? null : req.getIconId());
         if (req.getImageUrl() != null) c.setImageUrl(req.getImageUrl().isBlank() ? null : req.getImageUrl());
         if (req.getSortOrder() != null) c.setSortOrder(req.getSortOrder());
-        c = categoryRepository.save(c);
+        // Flush so the response and the event carry the bumped optimistic-locking version
+        c = categoryRepository.saveAndFlush(c);
+        listChangeLog.categoryChanged(c.getId());
+        CategoryDto dto = toDto(c, usageCountService.categoryCount(c.getId()));
         workspaceEventPublisher.publish(c.getWorkspace().getId(), WorkspaceEvent.EntityType.CATEGORY,
-                WorkspaceEvent.Action.UPDATED, c.getId(), c.getNameHe(), user);
-        return ResponseEntity.ok(toDto(c, getCategoryAddCounts().getOrDefault(c.getId(), 0L)));
+                WorkspaceEvent.Action.UPDATED, c.getId(), c.getNameHe(), dto, c.getVersion(), user);
+        return ResponseEntity.ok(dto);
     }
 
     @PutMapping("/reorder")
     @Transactional
     public ResponseEntity<Void> reorder(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody ReorderCategoriesRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        for (int i = 0; i < req.getCategoryIds().size(); i++) {
-            Category c = categoryAccessService.getCategoryOrThrow(req.getCategoryIds().get(i), user);
-            if (c.getSortOrder() != i) {
-                c.setSortOrder(i);
-                categoryRepository.save(c);
-            }
-        }
+        rankOrdering.reorder(Category.class, req.getCategoryIds(), categoriesOf(user),
+                () -> new AccessDeniedException("אין גישה לקטגוריה"));
         return ResponseEntity.noContent().build();
     }
 
+    /** Move one category directly after another (or to the top); only the moved row is written. */
+    @PostMapping("/{id}/move")
+    @Transactional
+    public ResponseEntity<CategoryDto> move(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestBody MoveRequest req
+    ) {
+        if (user == null) return ResponseEntity.status(401).build();
+        Category c = categoryAccessService.getCategoryOrThrow(id, user);
+        VersionCheck.check(req.getVersion(), c.getVersion());
+        c.setSortRank(rankOrdering.rankAfter(Category.class, id, req.getAfterId(), categoriesOf(user),
+                () -> new AccessDeniedException("אין גישה לקטגוריה")));
+        // Flush so the response carries the bumped optimistic-locking version
+        c = categoryRepository.saveAndFlush(c);
+        return ResponseEntity.ok(toDto(c, usageCountService.categoryCount(c.getId())));
+    }
+
     @DeleteMapping("/{id}")
     @Transactional
     public ResponseEntity<Void> delete(
             @PathVariable UUID id,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         Category c = categoryAccessService.getCategoryOrThrow(id, user);
@@ -149,32 +190,22 @@ public class CategoryController {
         // Explicitly remove list items and products before deleting the category,
         // to avoid the ON DELETE SET NULL cascade violating the
         // name_from_product_or_custom check constraint on list_items.
+        List<Product> products = productRepository.findByCategoryIdOrderByNameHe(id);
+        usageCountService.categoryDeleted(id, products.stream().map(Product::getId).toList());
+        listChangeLog.categoryRemoved(id);
         listItemRepository.deleteByProductCategoryId(id);
-        productRepository.findByCategoryIdOrderByNameHe(id)
-                .forEach(p -> productRepository.delete(p));
+        products.forEach(p -> productRepository.delete(p));
         UUID wsId = c.getWorkspace().getId();
         String name = c.getNameHe();
         categoryRepository.delete(c);
+        productSuggestIndex.invalidate(wsId);
         workspaceEventPublisher.publish(wsId, WorkspaceEvent.EntityType.CATEGORY,
                 WorkspaceEvent.Action.DELETED, id, name, user);
         return ResponseEntity.noContent().build();
     }
 
-    private Map<UUID, Long> getCategoryAddCounts() {
-        return listItemRepository.countByCategoryId().stream()
-                .collect(Collectors.toMap(
-                        row -> toUuid(row[0]),
-                        row -> ((Number) row[1]).longValue()
-                ));
-    }
-
-    private static UUID toUuid(Object o) {
-        if (o instanceof UUID) return (UUID) o;
-        if (o instanceof byte[]) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap((byte[]) o);
-            return new UUID(bb.getLong(), bb.getLong());
-        }
-        return UUID.fromString(o.toString());
+    private static RankScope categoriesOf(UserPrincipal user) {
+        return new RankScope(CATEGORIES_OF_USER, Map.of("userId", user.id()));
     }
 
     private static CategoryDto toDto(Category c, long addCount) {
@@ -185,6 +216,7 @@ public class CategoryController {
                 .iconId(c.getIconId())
                 .imageUrl(c.getImageUrl())
                 .sortOrder(c.getSortOrder())
+                .sortRank(c.getSortRank())
                 .addCount(addCount)
                 .version(c.getVersion())
                 .build();
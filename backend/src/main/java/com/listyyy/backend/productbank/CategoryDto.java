@@ -15,6 +15,7 @@ public class CategoryDto {
     private String iconId;
     private String imageUrl;
     private int sortOrder;
+    private String sortRank;
     /** Total number of list-item adds for products in this category (for sorting by frequency). */
     private long addCount;
     /** Optimistic-locking version. */
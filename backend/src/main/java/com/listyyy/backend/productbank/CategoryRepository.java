@@ -1,5 +1,6 @@
 package com.listyyy.backend.productbank;
 
+import com.listyyy.backend.CollectionVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -8,21 +9,41 @@ import java.util.UUID;
 
 public interface CategoryRepository extends JpaRepository<Category, UUID> {
 
-    List<Category> findAllByOrderBySortOrderAsc();
+    List<Category> findAllByOrderBySortRankAscCreatedAtAsc();
 
-    List<Category> findByWorkspaceIdOrderBySortOrderAsc(UUID workspaceId);
+    List<Category> findByWorkspaceIdOrderBySortRankAscCreatedAtAsc(UUID workspaceId);
 
     /** Categories visible to user: in any workspace the user is a member of. */
     @Query("SELECT DISTINCT c FROM Category c " +
            "JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = c.workspace.id " +
            "WHERE wm.userId = :userId " +
-           "ORDER BY c.sortOrder ASC")
+           "ORDER BY c.sortRank ASC, c.createdAt ASC")
     List<Category> findVisibleToUser(UUID userId);
 
     /** Categories in a specific workspace. */
-    @Query("SELECT c FROM Category c WHERE c.workspace.id = :workspaceId ORDER BY c.sortOrder ASC")
+    @Query("SELECT c FROM Category c WHERE c.workspace.id = :workspaceId ORDER BY c.sortRank ASC, c.createdAt ASC")
     List<Category> findByWorkspaceId(UUID workspaceId);
 
+    /** {@link CollectionVersion} of {@link #findVisibleToUser}, usage counts included, for its ETag. */
+    @Query("SELECT new com.listyyy.backend.CollectionVersion(COUNT(c), MAX(c.createdAt), " +
+           "COALESCE(SUM(c.version), 0L) + COALESCE(SUM(u.revision), 0L)) FROM Category c " +
+           "JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = c.workspace.id " +
+           "LEFT JOIN CategoryUsageCount u ON u.categoryId = c.id " +
+           "WHERE wm.userId = :userId")
+    CollectionVersion findVersionVisibleToUser(UUID userId);
+
+    @Query("SELECT new com.listyyy.backend.CollectionVersion(COUNT(c), MAX(c.createdAt), " +
+           "COALESCE(SUM(c.version), 0L) + COALESCE(SUM(u.revision), 0L)) FROM Category c " +
+           "LEFT JOIN CategoryUsageCount u ON u.categoryId = c.id " +
+           "WHERE c.workspace.id = :workspaceId")
+    CollectionVersion findVersionByWorkspaceId(UUID workspaceId);
+
+    /** The category and the user's role in its workspace (null when not a member) as one row, or no row. */
+    @Query("SELECT c, wm.role FROM Category c " +
+           "LEFT JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = c.workspace.id AND wm.userId = :userId " +
+           "WHERE c.id = :categoryId")
+    List<Object[]> findWithMemberRole(UUID categoryId, UUID userId);
+
     boolean existsByWorkspaceIdAndNameHe(UUID workspaceId, String nameHe);
 
     boolean existsByWorkspaceIdAndNameHeAndIdNot(UUID workspaceId, String nameHe, UUID id);
@@ -0,0 +1,35 @@
+package com.listyyy.backend.productbank;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Projection of how many list items currently reference a product in a category.
+ * Kept up to date by {@link UsageCountService}.
+ */
+@Entity
+@Table(name = "category_usage_counts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryUsageCount {
+
+    @Id
+    @Column(name = "category_id")
+    private UUID categoryId;
+
+    @Column(name = "workspace_id", nullable = false)
+    private UUID workspaceId;
+
+    @Column(name = "add_count", nullable = false)
+    private long addCount;
+
+    /** Bumped on every adjustment, so collection ETags change when only a count did. */
+    @Column(name = "revision", nullable = false)
+    @Builder.Default
+    private long revision = 1;
+}
@@ -0,0 +1,41 @@
+package com.listyyy.backend.productbank;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CategoryUsageCountRepository extends JpaRepository<CategoryUsageCount, UUID> {
+
+    @Query("SELECT u.addCount FROM CategoryUsageCount u WHERE u.categoryId = :categoryId")
+    Optional<Long> findCountByCategoryId(UUID categoryId);
+
+    /** Adds the category's row at zero unless it exists; concurrent callers wait on the key, none fails. */
+    @Modifying
+    @Query(value = "INSERT INTO category_usage_counts (category_id, workspace_id, add_count, revision) " +
+                   "VALUES (:categoryId, :workspaceId, 0, 1) ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(UUID categoryId, UUID workspaceId);
+
+    /** Atomically adjust the count. Returns 0 when the category has no row yet. */
+    @Modifying
+    @Query("UPDATE CategoryUsageCount u SET u.addCount = u.addCount + :delta, u.revision = u.revision + 1 WHERE u.categoryId = :categoryId")
+    int adjust(UUID categoryId, long delta);
+
+    @Modifying
+    @Query(value = "DELETE FROM category_usage_counts", nativeQuery = true)
+    void deleteAllRows();
+
+    @Query("SELECT COALESCE(MAX(u.revision), 0) FROM CategoryUsageCount u")
+    long findMaxRevision();
+
+    /** Recompute every row from list_items (used by the one-off rebuild), all at {@code revision}. */
+    @Modifying
+    @Query(value = "INSERT INTO category_usage_counts (category_id, workspace_id, add_count, revision) " +
+                   "SELECT c.id, c.workspace_id, COUNT(li.id), :revision FROM categories c " +
+                   "LEFT JOIN products p ON p.category_id = c.id " +
+                   "LEFT JOIN list_items li ON li.product_id = p.id " +
+                   "GROUP BY c.id, c.workspace_id", nativeQuery = true)
+    int rebuildAll(long revision);
+}
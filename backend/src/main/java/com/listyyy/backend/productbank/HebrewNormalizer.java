@@ -0,0 +1,41 @@
+package com.listyyy.backend.productbank;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes product names for search so that "לחם", "לֶחֶם" and "לחמניה" share a searchable form.
+ * Must stay in sync with the SQL backfill in V23__product_name_search.sql.
+ */
+public final class HebrewNormalizer {
+
+    /** Cantillation marks and vowel points (niqqud); maqaf, paseq and sof pasuq are kept. */
+    private static final Pattern NIQQUD = Pattern.compile("[\\u0591-\\u05BD\\u05BF\\u05C1\\u05C2\\u05C4\\u05C5\\u05C7]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private HebrewNormalizer() {}
+
+    /**
+     * Strip niqqud, fold final letters (ך→כ, ם→מ, ן→נ, ף→פ, ץ→צ), lower-case and collapse whitespace.
+     */
+    public static String normalize(String name) {
+        if (name == null) return "";
+        String stripped = NIQQUD.matcher(name).replaceAll("");
+        StringBuilder sb = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            sb.append(foldFinal(stripped.charAt(i)));
+        }
+        return WHITESPACE.matcher(sb.toString().trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static char foldFinal(char c) {
+        return switch (c) {
+            case 'ך' -> 'כ';
+            case 'ם' -> 'מ';
+            case 'ן' -> 'נ';
+            case 'ף' -> 'פ';
+            case 'ץ' -> 'צ';
+            default -> c;
+        };
+    }
+}
@@ -27,6 +27,11 @@ public class Product {
     @Column(name = "name_he", nullable = false)
     private String nameHe;
 
+    /** Search key derived from nameHe by {@link HebrewNormalizer}; never set directly. */
+    @Column(name = "name_normalized", nullable = false)
+    @Setter(AccessLevel.NONE)
+    private String nameNormalized;
+
     @Column(name = "default_unit", length = 50)
     @Builder.Default
     private String defaultUnit = "יחידה";
@@ -46,4 +51,14 @@ public class Product {
     @CreationTimestamp
     @Column(name = "created_at")
     private Instant createdAt;
+
+    public void setNameHe(String nameHe) {
+        this.nameHe = nameHe;
+        this.nameNormalized = HebrewNormalizer.normalize(nameHe);
+    }
+
+    @PrePersist
+    void normalizeName() {
+        nameNormalized = HebrewNormalizer.normalize(nameHe);
+    }
 }
@@ -1,15 +1,20 @@
 package com.listyyy.backend.productbank;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.CollectionVersion;
+import com.listyyy.backend.ETags;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.ResourceNotFoundException;
 import com.listyyy.backend.exception.VersionCheck;
+import com.listyyy.backend.list.ListChangeLog;
 import com.listyyy.backend.list.ListItemRepository;
 import com.listyyy.backend.websocket.WorkspaceEvent;
+import com.listyyy.backend.workspace.WorkspaceAccessService;
 import com.listyyy.backend.websocket.WorkspaceEventPublisher;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,55 +31,106 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final int MAX_SEARCH_RESULTS = 200;
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final CategoryAccessService categoryAccessService;
     private final ListItemRepository listItemRepository;
+    private final ListChangeLog listChangeLog;
+    private final UsageCountService usageCountService;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final WorkspaceAccessService workspaceAccessService;
     private final WorkspaceEventPublisher workspaceEventPublisher;
 
     @GetMapping
     public ResponseEntity<List<ProductDto>> list(
             @RequestParam(required = false) UUID categoryId,
             @RequestParam(required = false) String search,
-            @AuthenticationPrincipal User user
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
-        Set<UUID> visibleCategoryIds = categoryRepository.findVisibleToUser(user.getId())
-                .stream().map(c -> c.getId()).collect(Collectors.toSet());
-        List<Product> products;
         if (search != null && !search.isBlank()) {
-            products = productRepository.findByNameHeContainingIgnoreCase(search.trim());
-            products = products.stream().filter(p -> visibleCategoryIds.contains(p.getCategory().getId())).toList();
-        } else if (categoryId != null) {
-            if (!visibleCategoryIds.contains(categoryId)) throw new AccessDeniedException("אין גישה לקטגוריה");
+            return ResponseEntity.ok(search(user, search, limit));
+        }
+        // Before the version: a matching ETag must not answer 304 to a caller without access
+        if (categoryId != null) categoryAccessService.getCategoryOrThrow(categoryId, user);
+        CollectionVersion version = categoryId != null
+                ? productRepository.findVersionVisibleToUserInCategory(user.id(), categoryId)
+                : productRepository.findVersionVisibleToUser(user.id());
+        return ETags.respond(ifNoneMatch, version.etag(), () -> bank(user, categoryId));
+    }
+
+    /** The product bank, most used first; the caller has checked access to {@code categoryId}. */
+    private List<ProductDto> bank(UserPrincipal user, UUID categoryId) {
+        List<Product> products;
+        if (categoryId != null) {
             products = productRepository.findByCategoryIdOrderByNameHe(categoryId);
         } else {
+            Set<UUID> visibleCategoryIds = categoryRepository.findVisibleToUser(user.id())
+                    .stream().map(c -> c.getId()).collect(Collectors.toSet());
             products = productRepository.findByCategory_IdIn(visibleCategoryIds, Sort.by("nameHe"));
         }
-        Map<UUID, Long> addCountByProduct = getProductAddCounts();
-        List<ProductDto> body = products.stream()
+        Map<UUID, Long> addCountByProduct = usageCountService.productCounts(
+                products.stream().map(Product::getId).toList());
+        return products.stream()
                 .map(p -> toDto(p, addCountByProduct.getOrDefault(p.getId(), 0L)))
                 .sorted((a, b) -> {
                     int cmp = Long.compare(b.getAddCount(), a.getAddCount());
                     return cmp != 0 ? cmp : a.getNameHe().compareTo(b.getNameHe());
                 })
                 .toList();
-        return ResponseEntity.ok(body);
+    }
+
+    /** Visibility, ranking (similarity, then usage) and the limit are all applied in SQL; keep its order. */
+    private List<ProductDto> search(UserPrincipal user, String search, int limit) {
+        String term = HebrewNormalizer.normalize(search);
+        if (term.isEmpty()) return List.of();
+        String pattern = "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<Product> products = productRepository.searchVisibleToUser(
+                user.id(), term, pattern, Math.min(MAX_SEARCH_RESULTS, Math.max(1, limit)));
+        Map<UUID, Long> addCountByProduct = usageCountService.productCounts(
+                products.stream().map(Product::getId).toList());
+        return products.stream()
+                .map(p -> toDto(p, addCountByProduct.getOrDefault(p.getId(), 0L)))
+                .toList();
+    }
+
+    /** Type-ahead over one workspace's product bank, served from {@link ProductSuggestIndex}. */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @RequestParam UUID workspaceId,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserPrincipal user
+    ) {
+        if (user == null) return ResponseEntity.status(401).build();
+        if (!workspaceAccessService.canAccess(user, workspaceId)) throw new AccessDeniedException("אין גישה");
+        int capped = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(productSuggestIndex.suggest(workspaceId, query, capped));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> get(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<ProductDto> get(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @AuthenticationPrincipal UserPrincipal user
+    ) {
         if (user == null) return ResponseEntity.status(401).build();
         Product p = productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("הפריט לא נמצא"));
-        categoryAccessService.getCategoryOrThrow(p.getCategory().getId(), user);
-        Map<UUID, Long> addCountByProduct = getProductAddCounts();
-        return ResponseEntity.ok(toDto(p, addCountByProduct.getOrDefault(p.getId(), 0L)));
+        Category category = categoryAccessService.getCategoryOrThrow(p.getCategory().getId(), user);
+        long addCount = usageCountService.productCount(p.getId());
+        return ETags.respond(ifNoneMatch, ETags.of(p.getVersion(), category.getVersion(), addCount),
+                () -> toDto(p, addCount));
     }
 
     @PostMapping
     public ResponseEntity<ProductDto> create(
             @Valid @RequestBody CreateProductRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         var category = categoryAccessService.getCategoryOrThrow(req.getCategoryId(), user);
@@ -97,8 +153,9 @@ public class ProductController {
                 .note(note)
                 .build();
         p = productRepository.save(p);
+        productSuggestIndex.productSaved(p);
         workspaceEventPublisher.publish(category.getWorkspace().getId(), WorkspaceEvent.EntityType.PRODUCT,
-                WorkspaceEvent.Action.CREATED, p.getId(), p.getNameHe(), user);
+                WorkspaceEvent.Action.CREATED, p.getId(), p.getNameHe(), toDto(p, 0L), p.getVersion(), user);
         return ResponseEntity.ok(toDto(p, 0L));
     }
 
@@ -106,7 +163,7 @@ public class ProductController {
     @Transactional
     public ResponseEntity<Void> delete(
             @PathVariable UUID id,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         Product p = productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("הפריט לא נמצא"));
@@ -116,8 +173,11 @@ public class ProductController {
         String name = p.getNameHe();
         // Remove any list items referencing this product before deleting,
         // to avoid violating the name_from_product_or_custom check constraint.
+        usageCountService.productDeleted(p);
+        listChangeLog.productItemsRemoved(id);
         listItemRepository.deleteByProductId(id);
         productRepository.delete(p);
+        productSuggestIndex.productDeleted(wsId, id);
         workspaceEventPublisher.publish(wsId, WorkspaceEvent.EntityType.PRODUCT,
                 WorkspaceEvent.Action.DELETED, id, name, user);
         return ResponseEntity.noContent().build();
@@ -127,7 +187,7 @@ public class ProductController {
     @Transactional
     public ResponseEntity<ProductDto> update(
             @PathVariable UUID id,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody UpdateProductRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
@@ -161,29 +221,16 @@ public class ProductController {
             if (productRepository.existsByCategoryIdAndNameHeAndIdNot(req.getCategoryId(), p.getNameHe(), p.getId())) {
                 throw new IllegalArgumentException("כבר קיים פריט בשם זה בקטגוריה היעד");
             }
+            usageCountService.productMoved(p, p.getCategory(), newCategory);
             p.setCategory(newCategory);
         }
         p = productRepository.save(p);
+        productSuggestIndex.productSaved(p);
+        listChangeLog.productChanged(p.getId());
+        ProductDto dto = toDto(p, usageCountService.productCount(p.getId()));
         workspaceEventPublisher.publish(p.getCategory().getWorkspace().getId(), WorkspaceEvent.EntityType.PRODUCT,
-                WorkspaceEvent.Action.UPDATED, p.getId(), p.getNameHe(), user);
-        return ResponseEntity.ok(toDto(p, getProductAddCounts().getOrDefault(p.getId(), 0L)));
-    }
-
-    private Map<UUID, Long> getProductAddCounts() {
-        return listItemRepository.countByProductId().stream()
-                .collect(Collectors.toMap(
-                        row -> toUuid(row[0]),
-                        row -> ((Number) row[1]).longValue()
-                ));
-    }
-
-    private static UUID toUuid(Object o) {
-        if (o instanceof UUID) return (UUID) o;
-        if (o instanceof byte[]) {
-            java.nio.ByteBuffer bb = java.nio.ByteBuffer.wrap((byte[]) o);
-            return new UUID(bb.getLong(), bb.getLong());
-        }
-        return UUID.fromString(o.toString());
+                WorkspaceEvent.Action.UPDATED, p.getId(), p.getNameHe(), dto, p.getVersion(), user);
+        return ResponseEntity.ok(dto);
     }
 
     private ProductDto toDto(Product p, long addCount) {
@@ -1,7 +1,9 @@
 package com.listyyy.backend.productbank;
 
+import com.listyyy.backend.CollectionVersion;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Set;
@@ -13,7 +15,45 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 
     List<Product> findByCategory_IdIn(Set<UUID> categoryIds, Sort sort);
 
-    List<Product> findByNameHeContainingIgnoreCase(String nameHe);
+    /**
+     * {@link CollectionVersion} of the products visible to the user, for the product-bank ETag.
+     * Category versions count too (the DTO carries the category's name and icon), as do usage counts.
+     */
+    @Query("SELECT new com.listyyy.backend.CollectionVersion(COUNT(p), MAX(p.createdAt), " +
+           "COALESCE(SUM(p.version + c.version), 0L) + COALESCE(SUM(u.revision), 0L)) FROM Product p " +
+           "JOIN p.category c " +
+           "JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = c.workspace.id " +
+           "LEFT JOIN ProductUsageCount u ON u.productId = p.id " +
+           "WHERE wm.userId = :userId")
+    CollectionVersion findVersionVisibleToUser(UUID userId);
+
+    /** As {@link #findVersionVisibleToUser}, narrowed to one category (empty when the user cannot see it). */
+    @Query("SELECT new com.listyyy.backend.CollectionVersion(COUNT(p), MAX(p.createdAt), " +
+           "COALESCE(SUM(p.version + c.version), 0L) + COALESCE(SUM(u.revision), 0L)) FROM Product p " +
+           "JOIN p.category c " +
+           "JOIN com.listyyy.backend.workspace.WorkspaceMember wm ON wm.workspaceId = c.workspace.id " +
+           "LEFT JOIN ProductUsageCount u ON u.productId = p.id " +
+           "WHERE wm.userId = :userId AND c.id = :categoryId")
+    CollectionVersion findVersionVisibleToUserInCategory(UUID userId, UUID categoryId);
+
+    @Query("SELECT p FROM Product p WHERE p.category.workspace.id = :workspaceId")
+    List<Product> findByWorkspaceId(UUID workspaceId);
+
+    /**
+     * Substring search over {@code name_normalized} (pg_trgm GIN index) restricted to workspaces the user
+     * is a member of, ranked by trigram similarity and then usage.
+     *
+     * @param term    normalized search term (see {@link HebrewNormalizer})
+     * @param pattern LIKE pattern for the term, with LIKE wildcards backslash-escaped
+     */
+    @Query(value = "SELECT p.* FROM products p " +
+                   "JOIN categories c ON c.id = p.category_id " +
+                   "JOIN workspace_members wm ON wm.workspace_id = c.workspace_id AND wm.user_id = :userId " +
+                   "LEFT JOIN product_usage_counts u ON u.product_id = p.id " +
+                   "WHERE p.name_normalized LIKE :pattern ESCAPE '\\' " +
+                   "ORDER BY similarity(p.name_normalized, :term) DESC, COALESCE(u.add_count, 0) DESC, p.name_he " +
+                   "LIMIT :limit", nativeQuery = true)
+    List<Product> searchVisibleToUser(UUID userId, String term, String pattern, int limit);
 
     boolean existsByCategoryIdAndNameHe(UUID categoryId, String nameHe);
 
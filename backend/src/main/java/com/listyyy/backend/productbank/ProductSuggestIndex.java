@@ -0,0 +1,329 @@
+package com.listyyy.backend.productbank;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process autocomplete index for the product bank, one per workspace.
+ * <p>
+ * Each workspace is a sorted array of normalized name keys (the full name and every word suffix),
+ * so a prefix lookup is a binary search plus a short scan. Workspaces are loaded lazily on first
+ * lookup, kept current by the product write paths (applied after commit), and evicted LRU once the
+ * total number of keys exceeds {@code listyyy.suggest.max-entries}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+    private final ProductUsageCountRepository productUsageCountRepository;
+
+    @Value("${listyyy.suggest.max-entries:200000}")
+    private int maxEntries;
+
+    /** Guards {@link #indexes} and {@link #loading}. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Access-ordered, so iteration starts at the least recently used workspace. */
+    private final LinkedHashMap<UUID, WorkspaceIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    /** Loads in progress per workspace; a write to the workspace marks them stale. */
+    private final Map<UUID, List<Load>> loading = new HashMap<>();
+    private long totalEntries;
+
+    public List<ProductSuggestion> suggest(UUID workspaceId, String query, int limit) {
+        String prefix = HebrewNormalizer.normalize(query);
+        if (prefix.isEmpty()) return List.of();
+        WorkspaceIndex index = get(workspaceId);
+        if (index == null) index = load(workspaceId);
+        return index.lookup(prefix, limit);
+    }
+
+    /** Product created, renamed or moved to another category. */
+    public void productSaved(Product product) {
+        UUID workspaceId = product.getCategory().getWorkspace().getId();
+        Entry entry = new Entry(product.getId(), product.getNameHe(), product.getCategory().getId());
+        afterCommit(() -> update(workspaceId, index -> index.with(entry)));
+    }
+
+    public void productDeleted(UUID workspaceId, UUID productId) {
+        afterCommit(() -> update(workspaceId, index -> index.without(productId)));
+    }
+
+    /** Drop a workspace's index; it is rebuilt on the next lookup. */
+    public void invalidate(UUID workspaceId) {
+        afterCommit(() -> {
+            lock.lock();
+            try {
+                WorkspaceIndex removed = indexes.remove(workspaceId);
+                if (removed != null) totalEntries -= removed.size();
+                markLoadsStale(workspaceId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /** Called by {@link UsageCountService} so ranking follows add counts without a reload. */
+    void usageChanged(UUID workspaceId, UUID productId, long delta) {
+        afterCommit(() -> {
+            lock.lock();
+            try {
+                WorkspaceIndex index = indexes.get(workspaceId);
+                if (index != null) index.addCounts.merge(productId, delta, Long::sum);
+                else markLoadsStale(workspaceId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // ---- internal helpers ----
+
+    private WorkspaceIndex get(UUID workspaceId) {
+        lock.lock();
+        try {
+            return indexes.get(workspaceId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builds outside the lock so a slow query never blocks lookups for other workspaces. A write that commits
+     * while the queries run may or may not be in what they read, so the load is repeated; if writes keep
+     * landing, the index is returned without being kept and the next lookup loads again.
+     */
+    private WorkspaceIndex load(UUID workspaceId) {
+        WorkspaceIndex built = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            Load load = new Load();
+            lock.lock();
+            try {
+                WorkspaceIndex existing = indexes.get(workspaceId);
+                if (existing != null) return existing;
+                loading.computeIfAbsent(workspaceId, w -> new ArrayList<>()).add(load);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                built = read(workspaceId);
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    finish(workspaceId, load);
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+            lock.lock();
+            try {
+                // Checked and kept in one step: a write landing after this sees the index, not a load
+                if (!finish(workspaceId, load)) {
+                    WorkspaceIndex existing = indexes.get(workspaceId);
+                    if (existing != null) return existing;
+                    put(workspaceId, built);
+                    return built;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.debug("Suggest index for workspace {} changed during every load; not cached", workspaceId);
+        return built;
+    }
+
+    private WorkspaceIndex read(UUID workspaceId) {
+        ConcurrentHashMap<UUID, Long> addCounts = new ConcurrentHashMap<>();
+        productUsageCountRepository.findByWorkspaceId(workspaceId)
+                .forEach(u -> addCounts.put(u.getProductId(), u.getAddCount()));
+        List<Entry> entries = productRepository.findByWorkspaceId(workspaceId).stream()
+                .map(p -> new Entry(p.getId(), p.getNameHe(), p.getCategory().getId()))
+                .toList();
+        return WorkspaceIndex.build(entries, addCounts);
+    }
+
+    private void update(UUID workspaceId, UnaryOperator<WorkspaceIndex> change) {
+        lock.lock();
+        try {
+            WorkspaceIndex current = indexes.get(workspaceId);
+            if (current == null) {
+                markLoadsStale(workspaceId); // not loaded; next lookup reads fresh data
+                return;
+            }
+            totalEntries -= current.size();
+            indexes.remove(workspaceId);
+            put(workspaceId, change.apply(current));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds the lock; returns whether a write landed during the load. */
+    private boolean finish(UUID workspaceId, Load load) {
+        List<Load> loads = loading.get(workspaceId);
+        loads.remove(load);
+        if (loads.isEmpty()) loading.remove(workspaceId);
+        return load.stale;
+    }
+
+    /** Caller holds the lock. */
+    private void markLoadsStale(UUID workspaceId) {
+        List<Load> loads = loading.get(workspaceId);
+        if (loads != null) loads.forEach(l -> l.stale = true);
+    }
+
+    /** Caller holds the lock. */
+    private void put(UUID workspaceId, WorkspaceIndex index) {
+        indexes.put(workspaceId, index);
+        totalEntries += index.size();
+        Iterator<Map.Entry<UUID, WorkspaceIndex>> it = indexes.entrySet().iterator();
+        while (totalEntries > maxEntries && indexes.size() > 1 && it.hasNext()) {
+            Map.Entry<UUID, WorkspaceIndex> eldest = it.next();
+            if (eldest.getKey().equals(workspaceId)) continue;
+            totalEntries -= eldest.getValue().size();
+            it.remove();
+            log.debug("Evicted suggest index for workspace {}", eldest.getKey());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** One load in progress; guarded by the lock. */
+    private static final class Load {
+        boolean stale;
+    }
+
+    private record Entry(UUID id, String nameHe, UUID categoryId) {}
+
+    private record Key(String key, UUID owner) {}
+
+    /** Immutable key arrays plus live add counts; a product change produces a new instance by merging its keys. */
+    private static final class WorkspaceIndex {
+
+        private final Map<UUID, Entry> products;
+        private final String[] keys;
+        private final UUID[] owners;
+        private final ConcurrentHashMap<UUID, Long> addCounts;
+
+        private WorkspaceIndex(Map<UUID, Entry> products, String[] keys, UUID[] owners,
+                               ConcurrentHashMap<UUID, Long> addCounts) {
+            this.products = products;
+            this.keys = keys;
+            this.owners = owners;
+            this.addCounts = addCounts;
+        }
+
+        static WorkspaceIndex build(Collection<Entry> entries, ConcurrentHashMap<UUID, Long> addCounts) {
+            Map<UUID, Entry> products = new HashMap<>();
+            List<Key> all = new ArrayList<>();
+            for (Entry e : entries) {
+                products.put(e.id(), e);
+                for (String key : keysOf(e)) all.add(new Key(key, e.id()));
+            }
+            all.sort(Comparator.comparing(Key::key));
+            String[] keys = new String[all.size()];
+            UUID[] owners = new UUID[all.size()];
+            for (int i = 0; i < all.size(); i++) {
+                keys[i] = all.get(i).key();
+                owners[i] = all.get(i).owner();
+            }
+            return new WorkspaceIndex(products, keys, owners, addCounts);
+        }
+
+        WorkspaceIndex with(Entry entry) {
+            Map<UUID, Entry> next = new HashMap<>(products);
+            next.put(entry.id(), entry);
+            List<String> added = keysOf(entry);
+            added.sort(Comparator.naturalOrder());
+            return replaceKeys(next, entry.id(), added);
+        }
+
+        WorkspaceIndex without(UUID productId) {
+            if (!products.containsKey(productId)) return this;
+            Map<UUID, Entry> next = new HashMap<>(products);
+            next.remove(productId);
+            addCounts.remove(productId);
+            return replaceKeys(next, productId, List.of());
+        }
+
+        /** The full name and every word suffix, normalized. */
+        private static List<String> keysOf(Entry entry) {
+            String name = HebrewNormalizer.normalize(entry.nameHe());
+            List<String> keys = new ArrayList<>();
+            keys.add(name);
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                keys.add(name.substring(i + 1));
+            }
+            return keys;
+        }
+
+        /** Drops the product's keys and merges in {@code added} (sorted) in one pass; no re-sort. */
+        private WorkspaceIndex replaceKeys(Map<UUID, Entry> products, UUID owner, List<String> added) {
+            int dropped = 0;
+            if (this.products.containsKey(owner)) {
+                for (UUID o : owners) if (o.equals(owner)) dropped++;
+            }
+            String[] nextKeys = new String[keys.length - dropped + added.size()];
+            UUID[] nextOwners = new UUID[nextKeys.length];
+            int i = 0, j = 0, n = 0;
+            while (i < keys.length || j < added.size()) {
+                if (i < keys.length && owners[i].equals(owner)) {
+                    i++;
+                } else if (j < added.size() && (i == keys.length || added.get(j).compareTo(keys[i]) < 0)) {
+                    nextKeys[n] = added.get(j++);
+                    nextOwners[n++] = owner;
+                } else {
+                    nextKeys[n] = keys[i];
+                    nextOwners[n++] = owners[i++];
+                }
+            }
+            return new WorkspaceIndex(products, nextKeys, nextOwners, addCounts);
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        List<ProductSuggestion> lookup(String prefix, int limit) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) lo = mid + 1; else hi = mid;
+            }
+            Set<UUID> matches = new LinkedHashSet<>();
+            for (int i = lo; i < keys.length && keys[i].startsWith(prefix); i++) {
+                matches.add(owners[i]);
+            }
+            return matches.stream()
+                    .map(products::get)
+                    .map(e -> new ProductSuggestion(e.id(), e.nameHe(), e.categoryId(), addCounts.getOrDefault(e.id(), 0L)))
+                    .sorted(Comparator.comparingLong(ProductSuggestion::addCount).reversed()
+                            .thenComparing(ProductSuggestion::nameHe))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
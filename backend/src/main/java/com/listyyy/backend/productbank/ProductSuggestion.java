@@ -0,0 +1,9 @@
+package com.listyyy.backend.productbank;
+
+import java.util.UUID;
+
+/**
+ * Autocomplete hit served from {@link ProductSuggestIndex} without touching the database.
+ */
+public record ProductSuggestion(UUID id, String nameHe, UUID categoryId, long addCount) {
+}
@@ -0,0 +1,36 @@
+package com.listyyy.backend.productbank;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Projection of how many list items currently reference a product.
+ * Kept up to date by {@link UsageCountService} so product-bank reads are a primary-key lookup
+ * instead of a GROUP BY over list_items.
+ */
+@Entity
+@Table(name = "product_usage_counts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductUsageCount {
+
+    @Id
+    @Column(name = "product_id")
+    private UUID productId;
+
+    @Column(name = "workspace_id", nullable = false)
+    private UUID workspaceId;
+
+    @Column(name = "add_count", nullable = false)
+    private long addCount;
+
+    /** Bumped on every adjustment, so collection ETags change when only a count did. */
+    @Column(name = "revision", nullable = false)
+    @Builder.Default
+    private long revision = 1;
+}
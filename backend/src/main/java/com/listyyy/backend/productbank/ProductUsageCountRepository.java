@@ -0,0 +1,49 @@
+package com.listyyy.backend.productbank;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ProductUsageCountRepository extends JpaRepository<ProductUsageCount, UUID> {
+
+    @Query("SELECT u.addCount FROM ProductUsageCount u WHERE u.productId = :productId")
+    Optional<Long> findCountByProductId(UUID productId);
+
+    List<ProductUsageCount> findByWorkspaceId(UUID workspaceId);
+
+    /** Adds the product's row at zero unless it exists; concurrent callers wait on the key, none fails. */
+    @Modifying
+    @Query(value = "INSERT INTO product_usage_counts (product_id, workspace_id, add_count, revision) " +
+                   "VALUES (:productId, :workspaceId, 0, 1) ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(UUID productId, UUID workspaceId);
+
+    /** Atomically adjust the count. Returns 0 when the product has no row yet. */
+    @Modifying
+    @Query("UPDATE ProductUsageCount u SET u.addCount = u.addCount + :delta, u.revision = u.revision + 1 WHERE u.productId = :productId")
+    int adjust(UUID productId, long delta);
+
+    @Modifying
+    @Query("DELETE FROM ProductUsageCount u WHERE u.productId IN :productIds")
+    void deleteByProductIdIn(Collection<UUID> productIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_usage_counts", nativeQuery = true)
+    void deleteAllRows();
+
+    @Query("SELECT COALESCE(MAX(u.revision), 0) FROM ProductUsageCount u")
+    long findMaxRevision();
+
+    /** Recompute every row from list_items (used by the one-off rebuild), all at {@code revision}. */
+    @Modifying
+    @Query(value = "INSERT INTO product_usage_counts (product_id, workspace_id, add_count, revision) " +
+                   "SELECT p.id, c.workspace_id, COUNT(li.id), :revision FROM products p " +
+                   "JOIN categories c ON c.id = p.category_id " +
+                   "LEFT JOIN list_items li ON li.product_id = p.id " +
+                   "GROUP BY p.id, c.workspace_id", nativeQuery = true)
+    int rebuildAll(long revision);
+}
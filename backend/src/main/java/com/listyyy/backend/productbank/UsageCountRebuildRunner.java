@@ -0,0 +1,24 @@
+package com.listyyy.backend.productbank;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off repair job: recomputes the usage-count projections from list_items on startup.
+ * Enable with listyyy.usage-counts.rebuild-on-startup=true, then turn it back off.
+ */
+@Component
+@ConditionalOnProperty(name = "listyyy.usage-counts.rebuild-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+public class UsageCountRebuildRunner implements ApplicationRunner {
+
+    private final UsageCountService usageCountService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        usageCountService.rebuild();
+    }
+}
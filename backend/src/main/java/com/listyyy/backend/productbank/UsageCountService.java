@@ -0,0 +1,136 @@
+package com.listyyy.backend.productbank;
+
+import com.listyyy.backend.list.ListItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the product/category add-count projections incrementally.
+ * Every path that creates or deletes list items referencing a product must call in here,
+ * so reads never need to aggregate list_items.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsageCountService {
+
+    private final ProductUsageCountRepository productUsageCountRepository;
+    private final CategoryUsageCountRepository categoryUsageCountRepository;
+    private final ListItemRepository listItemRepository;
+    private final ProductSuggestIndex productSuggestIndex;
+
+    // ---- reads ----
+
+    public Map<UUID, Long> productCounts(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) return Map.of();
+        return productUsageCountRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductUsageCount::getProductId, ProductUsageCount::getAddCount));
+    }
+
+    public long productCount(UUID productId) {
+        return productUsageCountRepository.findCountByProductId(productId).orElse(0L);
+    }
+
+    public Map<UUID, Long> categoryCounts(Collection<UUID> categoryIds) {
+        if (categoryIds.isEmpty()) return Map.of();
+        return categoryUsageCountRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(CategoryUsageCount::getCategoryId, CategoryUsageCount::getAddCount));
+    }
+
+    public long categoryCount(UUID categoryId) {
+        return categoryUsageCountRepository.findCountByCategoryId(categoryId).orElse(0L);
+    }
+
+    // ---- incremental maintenance ----
+
+    /** A list item referencing this product was created (or an existing item was linked to it). */
+    @Transactional
+    public void itemAdded(Product product) {
+        adjust(product.getId(), product.getCategory().getId(), workspaceIdOf(product.getCategory()), 1);
+    }
+
+    /** A list item referencing this product was deleted. */
+    @Transactional
+    public void itemRemoved(Product product) {
+        adjust(product.getId(), product.getCategory().getId(), workspaceIdOf(product.getCategory()), -1);
+    }
+
+    /** Product moved to another category: its usage moves with it. */
+    @Transactional
+    public void productMoved(Product product, Category from, Category to) {
+        long count = productCount(product.getId());
+        if (count == 0) return;
+        adjustCategory(from.getId(), workspaceIdOf(from), -count);
+        adjustCategory(to.getId(), workspaceIdOf(to), count);
+    }
+
+    /** Call before bulk-deleting all items of a list. */
+    @Transactional
+    public void listItemsRemoved(UUID listId) {
+        for (Object[] row : listItemRepository.countProductUsageByListId(listId)) {
+            adjust((UUID) row[0], (UUID) row[1], (UUID) row[2], -((Number) row[3]).longValue());
+        }
+    }
+
+    /** Call when a product and all its list items are deleted. */
+    @Transactional
+    public void productDeleted(Product product) {
+        long count = productCount(product.getId());
+        if (count > 0) {
+            adjustCategory(product.getCategory().getId(), workspaceIdOf(product.getCategory()), -count);
+        }
+        productUsageCountRepository.deleteByProductIdIn(List.of(product.getId()));
+    }
+
+    /** Call when a category, its products and their list items are deleted. */
+    @Transactional
+    public void categoryDeleted(UUID categoryId, Collection<UUID> productIds) {
+        if (!productIds.isEmpty()) {
+            productUsageCountRepository.deleteByProductIdIn(productIds);
+        }
+        categoryUsageCountRepository.deleteById(categoryId);
+    }
+
+    /**
+     * Recompute both projections from list_items. One-off repair job; the incremental
+     * paths keep the counts correct afterwards.
+     */
+    @Transactional
+    public void rebuild() {
+        // Rebuilt rows start above every old revision so cached ETags cannot match again
+        long productRevision = productUsageCountRepository.findMaxRevision() + 1;
+        long categoryRevision = categoryUsageCountRepository.findMaxRevision() + 1;
+        productUsageCountRepository.deleteAllRows();
+        categoryUsageCountRepository.deleteAllRows();
+        int products = productUsageCountRepository.rebuildAll(productRevision);
+        int categories = categoryUsageCountRepository.rebuildAll(categoryRevision);
+        log.info("Rebuilt usage counts for {} products and {} categories", products, categories);
+    }
+
+    // ---- internal helpers ----
+
+    private void adjust(UUID productId, UUID categoryId, UUID workspaceId, long delta) {
+        // Insert-then-update rather than update-then-save: two first adds must not both insert
+        if (delta > 0) productUsageCountRepository.insertIfAbsent(productId, workspaceId);
+        productUsageCountRepository.adjust(productId, delta);
+        productSuggestIndex.usageChanged(workspaceId, productId, delta);
+        adjustCategory(categoryId, workspaceId, delta);
+    }
+
+    private void adjustCategory(UUID categoryId, UUID workspaceId, long delta) {
+        if (delta > 0) categoryUsageCountRepository.insertIfAbsent(categoryId, workspaceId);
+        categoryUsageCountRepository.adjust(categoryId, delta);
+    }
+
+    private static UUID workspaceIdOf(Category category) {
+        return category.getWorkspace().getId();
+    }
+}
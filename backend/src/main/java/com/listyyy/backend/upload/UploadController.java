@@ -1,11 +1,14 @@
 package com.listyyy.backend.upload;
 
+import com.listyyy.backend.auth.PrincipalCache;
 import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.auth.UserRepository;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.ResourceNotFoundException;
 import com.listyyy.backend.list.GroceryListRepository;
 import com.listyyy.backend.list.ListAccessService;
+import com.listyyy.backend.list.ListChangeLog;
 import com.listyyy.backend.list.ListItem;
 import com.listyyy.backend.list.ListItemRepository;
 import com.listyyy.backend.productbank.Category;
@@ -16,6 +19,7 @@ import com.listyyy.backend.productbank.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -30,18 +34,20 @@ public class UploadController {
 
     private final UploadService uploadService;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
     private final CategoryRepository categoryRepository;
     private final CategoryAccessService categoryAccessService;
     private final ProductRepository productRepository;
     private final ListItemRepository listItemRepository;
     private final GroceryListRepository groceryListRepository;
     private final ListAccessService listAccessService;
+    private final ListChangeLog listChangeLog;
 
     @PostMapping("/upload/category/{id}")
     public ResponseEntity<Map<String, String>> uploadCategoryImage(
             @PathVariable UUID id,
             @RequestParam("file") MultipartFile file,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) throws IOException {
         if (user == null) return ResponseEntity.status(401).build();
         Category cat = categoryAccessService.getCategoryOrThrow(id, user);
@@ -56,7 +62,7 @@ public class UploadController {
     public ResponseEntity<Map<String, String>> uploadProductImage(
             @PathVariable UUID id,
             @RequestParam("file") MultipartFile file,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) throws IOException {
         if (user == null) return ResponseEntity.status(401).build();
         Product product = productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("הפריט לא נמצא"));
@@ -65,6 +71,7 @@ public class UploadController {
         String url = uploadService.saveProductImage(file);
         product.setImageUrl(url);
         productRepository.save(product);
+        listChangeLog.productChanged(id);
         return ResponseEntity.ok(Map.of("url", url));
     }
 
@@ -72,7 +79,7 @@ public class UploadController {
     public ResponseEntity<Map<String, String>> uploadListImage(
             @PathVariable UUID listId,
             @RequestParam("file") MultipartFile file,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) throws IOException {
         if (user == null) return ResponseEntity.status(401).build();
         listAccessService.getListOrThrow(listId, user);
@@ -85,11 +92,12 @@ public class UploadController {
     }
 
     @PostMapping("/upload/lists/{listId}/items/{itemId}")
+    @Transactional
     public ResponseEntity<Map<String, String>> uploadListItemImage(
             @PathVariable UUID listId,
             @PathVariable UUID itemId,
             @RequestParam("file") MultipartFile file,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) throws IOException {
         if (user == null) return ResponseEntity.status(401).build();
         listAccessService.getListOrThrow(listId, user);
@@ -97,6 +105,7 @@ public class UploadController {
         if (!item.getList().getId().equals(listId)) throw new ResourceNotFoundException("הפריט לא שייך לרשימה");
         String url = uploadService.saveListItemImage(file);
         item.setItemImageUrl(url);
+        listChangeLog.itemChanged(item);
         listItemRepository.save(item);
         return ResponseEntity.ok(Map.of("url", url));
     }
@@ -104,12 +113,15 @@ public class UploadController {
     @PostMapping("/upload/profile")
     public ResponseEntity<Map<String, String>> uploadProfileImage(
             @RequestParam("file") MultipartFile file,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) throws IOException {
         if (user == null) return ResponseEntity.status(401).build();
         String url = uploadService.saveProfileImage(file);
-        user.setProfileImageUrl(url);
-        userRepository.save(user);
+        User entity = userRepository.findById(user.id())
+                .orElseThrow(() -> new ResourceNotFoundException("המשתמש לא נמצא"));
+        entity.setProfileImageUrl(url);
+        userRepository.save(entity);
+        principalCache.invalidate(user.id());
         return ResponseEntity.ok(Map.of("url", url));
     }
 }
@@ -0,0 +1,12 @@
+package com.listyyy.backend.websocket;
+
+import com.listyyy.backend.notification.PushRequest;
+
+/**
+ * A message for STOMP subscribers, published as an application event inside the writing transaction
+ * and sent by {@link EventDispatcher} only once that transaction has committed.
+ *
+ * @param payload STOMP message body, or null for a push alone
+ * @param push    phone notification to the list's other members, or null
+ */
+public record BroadcastEvent(String destination, Object payload, PushRequest push) {}
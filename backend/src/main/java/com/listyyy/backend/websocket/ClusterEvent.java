@@ -0,0 +1,41 @@
+package com.listyyy.backend.websocket;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/** An event sent on one replica, stored for the others to relay (see {@link DatabaseClusterRelay}). */
+@Entity
+@Table(name = "cluster_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClusterEvent {
+
+    public enum Kind { LIST, WORKSPACE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** The replica that sent it; it skips its own rows. */
+    @Column(nullable = false, length = 36)
+    private String origin;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    /** The STOMP payload as JSON. */
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
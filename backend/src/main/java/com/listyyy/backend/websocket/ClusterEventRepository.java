@@ -0,0 +1,27 @@
+package com.listyyy.backend.websocket;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ClusterEventRepository extends JpaRepository<ClusterEvent, Long> {
+
+    List<ClusterEvent> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /** Ids in {@code (afterId, upToId]} of rows created since {@code since}, to find those that committed late. */
+    @Query("SELECT e.id FROM ClusterEvent e WHERE e.createdAt >= :since AND e.id > :afterId AND e.id <= :upToId")
+    List<Long> findIdsCreatedSince(Instant since, long afterId, long upToId);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM ClusterEvent e")
+    long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClusterEvent e WHERE e.createdAt < :before")
+    int deleteCreatedBefore(Instant before);
+}
@@ -0,0 +1,12 @@
+package com.listyyy.backend.websocket;
+
+/**
+ * Carries the events this replica sends to the other replicas, whose subscribers are connected elsewhere;
+ * events from them arrive as {@link RelayedEvent}s. No bean (the default, {@code listyyy.events.cluster.mode=none})
+ * means a single replica.
+ */
+public interface ClusterRelay {
+
+    /** After the event was sent locally. */
+    void publish(String destination, Object payload);
+}
@@ -0,0 +1,242 @@
+package com.listyyy.backend.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cross-replica fan-out through the database we already share ({@code listyyy.events.cluster.mode=database}).
+ * Each sent event is stored in {@code cluster_events}; every replica reads the rows after the last it saw and
+ * hands the others' to its own subscribers. On PostgreSQL the insert is followed by a NOTIFY that wakes the
+ * readers at once (LISTEN on one pooled connection held for the purpose); on other databases, and whenever
+ * that connection is lost, they poll every {@code poll-interval-ms}.
+ * <p>
+ * Rows created in the last {@code lookback-ms} are read again (ids are assigned before commit, so a later one
+ * can become visible first) and skipped once seen. A relayed list event older than one already relayed for that
+ * list is dropped: its subscribers see the sequence gap and catch up through delta sync.
+ * <p>
+ * The reader thread runs between the context's lifecycle start and stop.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "listyyy.events.cluster.mode", havingValue = "database")
+public class DatabaseClusterRelay implements ClusterRelay, SmartLifecycle {
+
+    private static final String CHANNEL = "listyyy_events";
+    private static final int BATCH = 500;
+    private static final int MAX_SEEN = 10_000;
+    private static final int MAX_LISTS = 10_000;
+
+    private final ClusterEventRepository repository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final long pollIntervalMs;
+    private final long retentionMinutes;
+    private final long lookbackMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    // Both used by the reader thread only
+    private final Set<Long> seen = new LinkedHashSet<>();
+    private final Map<String, Long> lastListSeq = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_LISTS;
+        }
+    };
+    private volatile boolean postgres;
+    private long lastSeenId;
+    /** The last id before this replica came up; older rows are never read. */
+    private long startId;
+    private Thread reader;
+    private volatile boolean running;
+
+    public DatabaseClusterRelay(ClusterEventRepository repository, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate,
+                                JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                @Value("${listyyy.events.cluster.poll-interval-ms:1000}") long pollIntervalMs,
+                                @Value("${listyyy.events.cluster.retention-minutes:10}") long retentionMinutes,
+                                @Value("${listyyy.events.cluster.lookback-ms:10000}") long lookbackMs) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.pollIntervalMs = pollIntervalMs;
+        this.retentionMinutes = retentionMinutes;
+        this.lookbackMs = lookbackMs;
+    }
+
+    @Override
+    public void start() {
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot start the cluster relay", e);
+        }
+        // Start from now: what was sent before this replica came up is not replayed
+        startId = lastSeenId = repository.findMaxId();
+        running = true;
+        reader = new Thread(this::readLoop, "cluster-relay");
+        reader.setDaemon(true);
+        reader.start();
+        log.info("Cluster relay {} started ({})", nodeId, postgres ? "LISTEN/NOTIFY" : "polling");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        reader.interrupt();
+        try {
+            reader.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void publish(String destination, Object payload) {
+        ClusterEvent.Kind kind = payload instanceof ListEvent ? ClusterEvent.Kind.LIST
+                : payload instanceof WorkspaceEvent ? ClusterEvent.Kind.WORKSPACE : null;
+        if (kind == null) return;
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot relay event for {}: {}", destination, e.getMessage());
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.save(ClusterEvent.builder()
+                    .origin(nodeId)
+                    .destination(destination)
+                    .kind(kind)
+                    .payload(json)
+                    .createdAt(Instant.now())
+                    .build());
+            // Delivered on commit, together with the row
+            if (postgres) jdbcTemplate.execute("NOTIFY " + CHANNEL);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "PT5M")
+    public void prune() {
+        repository.deleteCreatedBefore(Instant.now().minus(retentionMinutes, ChronoUnit.MINUTES));
+    }
+
+    private void readLoop() {
+        Connection listener = null;
+        while (running) {
+            try {
+                if (postgres && listener == null) listener = listen();
+                if (listener != null) {
+                    // Returns on the first notification, or after the interval as a poll
+                    listener.unwrap(PGConnection.class).getNotifications((int) pollIntervalMs);
+                } else {
+                    Thread.sleep(pollIntervalMs);
+                }
+                poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (!running) break;
+                log.warn("Cluster relay read failed: {}", e.getMessage());
+                listener = close(listener);
+                sleepQuietly();
+            }
+        }
+        close(listener);
+    }
+
+    private Connection listen() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        return connection;
+    }
+
+    private void poll() {
+        List<ClusterEvent> rows = new ArrayList<>(repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(BATCH)));
+        // Committed after a higher id was read: found again while young enough, unless already seen
+        List<Long> late = repository.findIdsCreatedSince(Instant.now().minusMillis(lookbackMs), startId, lastSeenId)
+                .stream().filter(id -> !seen.contains(id)).toList();
+        if (!late.isEmpty()) {
+            rows.addAll(repository.findAllById(late));
+            rows.sort(Comparator.comparing(ClusterEvent::getId));
+        }
+        for (ClusterEvent row : rows) {
+            lastSeenId = Math.max(lastSeenId, row.getId());
+            if (!seen.add(row.getId())) continue;
+            if (seen.size() > MAX_SEEN) seen.remove(seen.iterator().next());
+            if (nodeId.equals(row.getOrigin())) continue;
+            try {
+                Class<?> type = row.getKind() == ClusterEvent.Kind.LIST ? ListEvent.class : WorkspaceEvent.class;
+                Object payload = objectMapper.readValue(row.getPayload(), type);
+                if (payload instanceof ListEvent event && !inOrder(row.getDestination(), event.getSeq())) continue;
+                eventPublisher.publishEvent(new RelayedEvent(row.getDestination(), payload));
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable cluster event {}: {}", row.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean inOrder(String destination, long seq) {
+        Long previous = lastListSeq.get(destination);
+        if (previous != null && seq <= previous) return false;
+        lastListSeq.put(destination, seq);
+        return true;
+    }
+
+    private Connection close(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.listyyy.backend.websocket;
+
+import com.listyyy.backend.notification.PushDigester;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends {@link BroadcastEvent}s after their transaction commits, on the bounded {@code eventDispatchExecutor}: a rolled-back
+ * write never reaches subscribers, and the request does not wait on the fan-out while holding its connection.
+ * A destination's events are sent one at a time, in the order they were submitted: while one is on the pool the
+ * next wait behind it, so subscribers see a list's sequence without gaps. When {@code queue-capacity} events are
+ * waiting, further ones are dropped and counted; clients catch up through delta sync.
+ * List events on a busy list are merged for a few tens of milliseconds first (see {@link ListEventCoalescer});
+ * their pushes are not held here but by the {@link PushDigester}. What is sent is kept for replay on reconnect ({@link EventReplayBuffer}) and,
+ * with more than one replica, handed to the {@link ClusterRelay} for the subscribers connected to the others.
+ * <p>
+ * Metrics: {@code listyyy.events.dispatch.queue} (waiting events), {@code listyyy.events.dispatch.latency}
+ * (commit to sent, queue wait included) and {@code listyyy.events.dispatch.dropped}.
+ */
+@Slf4j
+@Component
+public class EventDispatcher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PushDigester pushDigester;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer latency;
+    private final Counter dropped;
+    private final ListEventCoalescer coalescer;
+    private final EventReplayBuffer replayBuffer;
+    private final ObjectProvider<ClusterRelay> clusterRelay;
+    /** Events behind the one on the pool, per destination; a destination is present while it has one there. */
+    private final Map<String, ArrayDeque<Runnable>> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int capacity;
+
+    public EventDispatcher(SimpMessagingTemplate messagingTemplate, PushDigester pushDigester, MeterRegistry meterRegistry,
+                           LiveSubscriptions liveSubscriptions, EventReplayBuffer replayBuffer,
+                           ObjectProvider<ClusterRelay> clusterRelay,
+                           @Qualifier("eventDispatchExecutor") ThreadPoolTaskExecutor executor,
+                           @Value("${listyyy.events.coalesce.min-window-ms:25}") long minWindowMs,
+                           @Value("${listyyy.events.coalesce.max-window-ms:100}") long maxWindowMs,
+                           @Value("${listyyy.events.coalesce.quiet-fanout:10}") double quietFanout,
+                           @Value("${listyyy.events.coalesce.busy-fanout:200}") double busyFanout) {
+        this.messagingTemplate = messagingTemplate;
+        this.pushDigester = pushDigester;
+        this.replayBuffer = replayBuffer;
+        this.clusterRelay = clusterRelay;
+        this.executor = executor;
+        this.capacity = executor.getQueueCapacity();
+        Gauge.builder("listyyy.events.dispatch.queue", waiting, AtomicInteger::get)
+                .description("Events waiting for a dispatcher thread")
+                .register(meterRegistry);
+        latency = Timer.builder("listyyy.events.dispatch.latency")
+                .description("From commit until the event was handed to the broker")
+                .register(meterRegistry);
+        dropped = Counter.builder("listyyy.events.dispatch.dropped")
+                .description("Events dropped because the dispatcher queue was full")
+                .register(meterRegistry);
+        coalescer = new ListEventCoalescer(
+                liveSubscriptions::subscriptionsOn,
+                this::submit, meterRegistry, minWindowMs, maxWindowMs, quietFanout, busyFanout);
+    }
+
+    /** After commit; callers without a transaction are dispatched right away. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(BroadcastEvent event) {
+        long committedAt = System.nanoTime();
+        if (event.payload() instanceof ListEvent listEvent && coalescer.hold(event.destination(), listEvent, committedAt)) {
+            if (event.push() != null) submit(new BroadcastEvent(event.destination(), null, event.push()), committedAt);
+            return;
+        }
+        submit(event, committedAt);
+    }
+
+    /** Sent on another replica: only this replica's subscribers are left to reach. */
+    @EventListener
+    public void onRelayed(RelayedEvent event) {
+        submit(new BroadcastEvent(event.destination(), event.payload(), null), System.nanoTime(), false);
+    }
+
+    private void submit(BroadcastEvent event, long committedAt) {
+        submit(event, committedAt, true);
+    }
+
+    private void submit(BroadcastEvent event, long committedAt, boolean local) {
+        if (waiting.incrementAndGet() > capacity) {
+            drop(event.destination(), 1);
+            return;
+        }
+        String destination = event.destination();
+        Runnable task = () -> dispatch(event, committedAt, local);
+        boolean[] first = {false};
+        lanes.compute(destination, (d, lane) -> {
+            if (lane == null) {
+                first[0] = true;
+                return new ArrayDeque<>();
+            }
+            lane.addLast(task);
+            return lane;
+        });
+        if (!first[0]) return;
+        try {
+            executor.execute(() -> drain(destination, task));
+        } catch (TaskRejectedException e) {
+            ArrayDeque<Runnable> behind = lanes.remove(destination);
+            drop(destination, 1 + (behind != null ? behind.size() : 0));
+        }
+    }
+
+    /** Runs the destination's events until none is left behind the last one. */
+    private void drain(String destination, Runnable task) {
+        while (task != null) {
+            waiting.decrementAndGet();
+            task.run();
+            task = next(destination);
+        }
+    }
+
+    private Runnable next(String destination) {
+        Runnable[] next = {null};
+        lanes.computeIfPresent(destination, (d, lane) -> {
+            next[0] = lane.pollFirst();
+            return next[0] != null ? lane : null;
+        });
+        return next[0];
+    }
+
+    private void drop(String destination, int events) {
+        waiting.addAndGet(-events);
+        dropped.increment(events);
+        log.warn("Event dispatcher queue full, dropped {} event(s) for {}", events, destination);
+    }
+
+    private void dispatch(BroadcastEvent event, long committedAt, boolean local) {
+        try {
+            if (event.payload() != null) {
+                replayBuffer.record(event.destination(), event.payload());
+                messagingTemplate.convertAndSend(event.destination(), event.payload());
+                if (local) clusterRelay.ifAvailable(relay -> relay.publish(event.destination(), event.payload()));
+            }
+            if (event.push() != null) pushDigester.add(event.push());
+        } catch (RuntimeException e) {
+            log.warn("Failed to dispatch event for {}: {}", event.destination(), e.getMessage());
+        } finally {
+            latency.record(System.nanoTime() - committedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // The executor bean outlives this one, so what the coalescer still holds is sent
+        coalescer.shutdown();
+    }
+}
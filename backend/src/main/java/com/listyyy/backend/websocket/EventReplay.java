@@ -0,0 +1,17 @@
+package com.listyyy.backend.websocket;
+
+import java.util.List;
+
+/**
+ * Answer to a replay subscription: the events missed since the client's {@code last-seq}, oldest first,
+ * or {@code resyncRequired} when they are no longer all known and the client must refetch.
+ *
+ * @param seq for a list, its change sequence now; above the last replayed event means writes that send no
+ *            event happened since (reorder, rename), so the client should catch up with delta sync
+ */
+public record EventReplay(boolean resyncRequired, List<Object> events, Long seq) {
+
+    static EventReplay resync(Long seq) {
+        return new EventReplay(true, List.of(), seq);
+    }
+}
@@ -0,0 +1,171 @@
+package com.listyyy.backend.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The last few events sent to each list and workspace topic, so a client that reconnects with the last
+ * sequence it saw gets what it missed instead of refetching (see {@link EventReplayController}).
+ * <p>
+ * List events carry the list's change sequence. Workspace events get one here, from a counter shared by all
+ * workspaces that starts at the boot time in microseconds, so sequences from before a restart read as too old.
+ * It is this replica's counter, relayed events included: each workspace event names the replica, and a client
+ * whose last sequence came from another one must resync.
+ * <p>
+ * Bounded per topic and in total: over the total, the least recently written topics are dropped whole;
+ * topics idle for {@code idle-minutes} are dropped too. Metric: {@code listyyy.events.replay.buffered}.
+ */
+@Component
+public class EventReplayBuffer {
+
+    private static final String WORKSPACE_PREFIX = "/topic/workspaces/";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final String replicaId = UUID.randomUUID().toString();
+    private final int perTopic;
+    private final int maxEvents;
+    private final long idleNanos;
+    /** Least recently written first. */
+    private final LinkedHashMap<String, Ring> rings = new LinkedHashMap<>();
+    private int buffered;
+    private long workspaceSeq = System.currentTimeMillis() * 1000;
+    /** Highest workspace sequence dropped along with its topic. */
+    private long workspaceFloor = workspaceSeq;
+
+    public EventReplayBuffer(MeterRegistry meterRegistry,
+                             @Value("${listyyy.events.replay.per-topic:200}") int perTopic,
+                             @Value("${listyyy.events.replay.max-events:100000}") int maxEvents,
+                             @Value("${listyyy.events.replay.idle-minutes:30}") long idleMinutes) {
+        this.perTopic = perTopic;
+        this.maxEvents = maxEvents;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        Gauge.builder("listyyy.events.replay.buffered", this, b -> b.size())
+                .description("Events held for replay on reconnect")
+                .register(meterRegistry);
+    }
+
+    /** Keeps an event as it is sent; workspace events get their sequence here. */
+    public void record(String destination, Object payload) {
+        lock.lock();
+        try {
+            long seq, known;
+            if (payload instanceof ListEvent e) {
+                seq = e.getSeq();
+                known = (e.getFromSeq() != null ? e.getFromSeq() : seq) - 1;
+            } else if (payload instanceof WorkspaceEvent e) {
+                seq = ++workspaceSeq;
+                e.setSeq(seq);
+                e.setReplica(replicaId);
+                known = workspaceFloor;
+            } else {
+                return;
+            }
+            // Re-inserted so the map stays in order of last write
+            Ring ring = rings.remove(destination);
+            if (ring == null) ring = new Ring(known);
+            rings.put(destination, ring);
+            ring.events.addLast(new Entry(seq, payload));
+            ring.lastWriteAt = System.nanoTime();
+            buffered++;
+            if (ring.events.size() > perTopic) {
+                ring.evictedUpTo = ring.events.removeFirst().seq();
+                buffered--;
+            }
+            Iterator<Map.Entry<String, Ring>> eldest = rings.entrySet().iterator();
+            while (buffered > maxEvents && eldest.hasNext()) {
+                Map.Entry<String, Ring> next = eldest.next();
+                if (next.getValue() == ring) break;
+                drop(next.getKey(), next.getValue());
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The events sent to the topic after {@code lastSeq}, oldest first; null when some of them may no longer
+     * be here (or, for a list, may never have been: the caller can check the list's own sequence).
+     */
+    public List<Object> since(String destination, long lastSeq) {
+        lock.lock();
+        try {
+            Ring ring = rings.get(destination);
+            if (ring == null) {
+                return destination.startsWith(WORKSPACE_PREFIX) && lastSeq >= workspaceFloor ? List.of() : null;
+            }
+            if (lastSeq < ring.evictedUpTo) return null;
+            List<Object> missed = new ArrayList<>();
+            for (Entry entry : ring.events) {
+                if (entry.seq() > lastSeq) missed.add(entry.payload());
+            }
+            return missed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Names this replica's workspace sequences. */
+    public String replicaId() {
+        return replicaId;
+    }
+
+    @Scheduled(fixedDelayString = "PT1M")
+    public void evictIdle() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<String, Ring>> it = rings.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Ring> next = it.next();
+                if (now - next.getValue().lastWriteAt < idleNanos) break;
+                drop(next.getKey(), next.getValue());
+                it.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return buffered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drop(String destination, Ring ring) {
+        buffered -= ring.events.size();
+        if (destination.startsWith(WORKSPACE_PREFIX) && !ring.events.isEmpty()) {
+            workspaceFloor = Math.max(workspaceFloor, ring.events.peekLast().seq());
+        }
+    }
+
+    private record Entry(long seq, Object payload) {}
+
+    private static class Ring {
+        final ArrayDeque<Entry> events = new ArrayDeque<>();
+        /** Events up to this sequence are not here (dropped, or sent before the topic was first buffered). */
+        long evictedUpTo;
+        long lastWriteAt;
+
+        Ring(long evictedUpTo) {
+            this.evictedUpTo = evictedUpTo;
+        }
+    }
+}
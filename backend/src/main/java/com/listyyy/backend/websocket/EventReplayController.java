@@ -0,0 +1,44 @@
+package com.listyyy.backend.websocket;
+
+import com.listyyy.backend.list.GroceryListRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Replay on reconnect: after re-subscribing to its topic, a client subscribes to
+ * {@code /app/lists/{id}/replay} (or {@code /app/workspaces/{id}/replay}) with a {@code last-seq} header and
+ * gets one {@link EventReplay} back. Workspace replays also take the {@code last-replica} the sequence came from. Access is checked by the SUBSCRIBE interceptor in {@link WebSocketConfig}.
+ */
+@Controller
+@RequiredArgsConstructor
+public class EventReplayController {
+
+    private final EventReplayBuffer replayBuffer;
+    private final GroceryListRepository listRepository;
+
+    @SubscribeMapping("/lists/{listId}/replay")
+    public EventReplay listReplay(@DestinationVariable UUID listId,
+                                  @Header(name = "last-seq", required = false) Long lastSeq) {
+        long seq = listRepository.findChangeSeq(listId);
+        if (lastSeq == null) return EventReplay.resync(seq);
+        if (lastSeq >= seq) return new EventReplay(false, List.of(), seq);
+        List<Object> missed = replayBuffer.since("/topic/lists/" + listId, lastSeq);
+        return missed == null ? EventReplay.resync(seq) : new EventReplay(false, missed, seq);
+    }
+
+    @SubscribeMapping("/workspaces/{workspaceId}/replay")
+    public EventReplay workspaceReplay(@DestinationVariable UUID workspaceId,
+                                       @Header(name = "last-seq", required = false) Long lastSeq,
+                                       @Header(name = "last-replica", required = false) String lastReplica) {
+        // A sequence from another replica's counter says nothing about what this one sent
+        boolean comparable = lastSeq != null && replayBuffer.replicaId().equals(lastReplica);
+        List<Object> missed = comparable ? replayBuffer.since("/topic/workspaces/" + workspaceId, lastSeq) : null;
+        return missed == null ? EventReplay.resync(null) : new EventReplay(false, missed, null);
+    }
+}
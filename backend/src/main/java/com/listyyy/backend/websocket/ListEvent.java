@@ -1,15 +1,26 @@
 package com.listyyy.backend.websocket;
 
+import com.listyyy.backend.list.ListItemResponse;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+import java.util.List;
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ListEvent {
 
-    public enum Type { ADDED, REMOVED, UPDATED }
+    public enum Type { ADDED, REMOVED, UPDATED, BATCH }
+
+    /** For BATCH: how many items each kind of operation touched. */
+    private Integer addedCount;
+    private Integer updatedCount;
+    private Integer removedCount;
 
     private Type type;
     private UUID listId;
@@ -18,4 +29,20 @@ public class ListEvent {
     private String quantityUnit;
     private UUID userId;
     private String userDisplayName;
+
+    /**
+     * The list's change sequence after this write. Apply events in this order; a jump means a write whose
+     * event was missed or that sends none (reorder, product rename): catch up with {@code GET items?since=}.
+     */
+    private long seq;
+    /**
+     * Set on a BATCH that merges several writes (see {@link ListEventCoalescer}): the sequence of the first,
+     * so the frame covers {@code fromSeq..seq} and follows on from {@code fromSeq - 1}.
+     */
+    private Long fromSeq;
+    /** ADDED / UPDATED: the item exactly as {@code GET items} returns it. */
+    private ListItemResponse item;
+    /** BATCH: items added or updated, and ids removed. */
+    private List<ListItemResponse> items;
+    private List<UUID> removedItemIds;
 }
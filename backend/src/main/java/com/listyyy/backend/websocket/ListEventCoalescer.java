@@ -0,0 +1,258 @@
+package com.listyyy.backend.websocket;
+
+import com.listyyy.backend.list.ListItemResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Holds a busy list's events for a short window and sends them as one BATCH frame, keeping only the latest
+ * state of each item. Quiet lists are not held at all. The window grows from {@code minWindowMs} to
+ * {@code maxWindowMs} with the list's fan-out (events per second times subscribers): frames a burst of
+ * crossed-off toggles would cost every phone on the list.
+ * <p>
+ * Metrics: {@code listyyy.events.coalesce.frames} (merged frames sent) and {@code listyyy.events.coalesce.saved}
+ * (frames they replaced, less one each).
+ */
+class ListEventCoalescer {
+
+    /** Sends a frame; the second argument is when its first event committed, for the latency timer. */
+    interface Sink {
+        void send(BroadcastEvent frame, long committedAt);
+    }
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long SUBSCRIBER_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, ListState> lists = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskScheduler scheduler;
+    private final ToIntFunction<String> subscriberCount;
+    private final Sink sink;
+    private final long minWindowMs;
+    private final long maxWindowMs;
+    private final double quietFanout;
+    private final double busyFanout;
+    private final Counter frames;
+    private final Counter saved;
+
+    ListEventCoalescer(ToIntFunction<String> subscriberCount, Sink sink, MeterRegistry meterRegistry,
+                       long minWindowMs, long maxWindowMs, double quietFanout, double busyFanout) {
+        this.subscriberCount = subscriberCount;
+        this.sink = sink;
+        this.minWindowMs = minWindowMs;
+        this.maxWindowMs = Math.max(minWindowMs, maxWindowMs);
+        this.quietFanout = quietFanout;
+        this.busyFanout = busyFanout;
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("event-coalesce-");
+        scheduler.setPoolSize(1);
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::evictIdle, Duration.ofMinutes(1));
+        frames = Counter.builder("listyyy.events.coalesce.frames")
+                .description("Merged list frames sent")
+                .register(meterRegistry);
+        saved = Counter.builder("listyyy.events.coalesce.saved")
+                .description("List frames not sent because they were merged into another")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Holds the event if its list is busy (or already has a window open) and returns true; returns false
+     * when it should go out right away.
+     */
+    boolean hold(String destination, ListEvent event, long committedAt) {
+        if (maxWindowMs <= 0) return false;
+        ListState state = lists.computeIfAbsent(destination, d -> new ListState());
+        state.lock.lock();
+        try {
+            long now = System.nanoTime();
+            state.countEvent(now);
+            if (state.pending != null) {
+                state.pending.add(event);
+                return true;
+            }
+            if (state.subscribers < 0 || now - state.subscribersCheckedAt > SUBSCRIBER_REFRESH_NANOS) {
+                state.subscribers = subscriberCount.applyAsInt(destination);
+                state.subscribersCheckedAt = now;
+            }
+            double fanout = state.rate() * Math.max(1, state.subscribers);
+            if (fanout < quietFanout) return false;
+            state.pending = new Pending(committedAt);
+            state.pending.add(event);
+            scheduler.schedule(() -> flush(destination, state), scheduler.getClock().instant().plusMillis(window(fanout)));
+            return true;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private long window(double fanout) {
+        double busy = busyFanout > quietFanout ? (fanout - quietFanout) / (busyFanout - quietFanout) : 1;
+        return minWindowMs + Math.round((maxWindowMs - minWindowMs) * Math.min(1, Math.max(0, busy)));
+    }
+
+    private void flush(String destination, ListState state) {
+        Pending pending;
+        state.lock.lock();
+        try {
+            pending = state.pending;
+            state.pending = null;
+        } finally {
+            state.lock.unlock();
+        }
+        if (pending == null) return;
+        if (pending.events.size() > 1) {
+            frames.increment();
+            saved.increment(pending.events.size() - 1);
+        }
+        sink.send(new BroadcastEvent(destination, pending.merge(), null), pending.committedAt);
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        lists.values().removeIf(state -> {
+            state.lock.lock();
+            try {
+                return state.pending == null && now - state.lastEventAt > IDLE_NANOS;
+            } finally {
+                state.lock.unlock();
+            }
+        });
+    }
+
+    void shutdown() {
+        scheduler.shutdown();
+        lists.forEach(this::flush);
+    }
+
+    /**
+     * Per-list event rate (events in the current and previous second) and the open window, if any, guarded by
+     * {@code lock}.
+     */
+    private static class ListState {
+        final ReentrantLock lock = new ReentrantLock();
+        long lastEventAt;
+        long secondStart;
+        int thisSecond;
+        int lastSecond;
+        int subscribers = -1;
+        long subscribersCheckedAt;
+        Pending pending;
+
+        ListState() {
+            secondStart = System.nanoTime();
+        }
+
+        void countEvent(long now) {
+            long elapsed = now - secondStart;
+            if (elapsed >= TimeUnit.SECONDS.toNanos(2)) {
+                lastSecond = 0;
+                thisSecond = 0;
+                secondStart = now;
+            } else if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+                lastSecond = thisSecond;
+                thisSecond = 0;
+                secondStart = now;
+            }
+            thisSecond++;
+            lastEventAt = now;
+        }
+
+        double rate() {
+            return Math.max(thisSecond, lastSecond);
+        }
+    }
+
+    private static class Pending {
+        final long committedAt;
+        final List<ListEvent> events = new ArrayList<>();
+
+        Pending(long committedAt) {
+            this.committedAt = committedAt;
+        }
+
+        void add(ListEvent event) {
+            events.add(event);
+        }
+
+        /** One event as is; several as a BATCH with each item's latest state, spanning their sequences. */
+        ListEvent merge() {
+            if (events.size() == 1) return events.get(0);
+            // Concurrent commits can reach the window out of order
+            events.sort(Comparator.comparingLong(ListEvent::getSeq));
+            Map<UUID, ListItemResponse> upserts = new LinkedHashMap<>();
+            Set<UUID> removed = new LinkedHashSet<>();
+            int added = 0, updated = 0;
+            long seq = startSeq(events.get(0)) - 1;
+            boolean contiguous = true;
+            for (ListEvent e : events) {
+                // A write in between that sends no event (reorder, rename) leaves a gap the client must refetch
+                contiguous &= startSeq(e) <= seq + 1;
+                seq = Math.max(seq, e.getSeq());
+                switch (e.getType()) {
+                    case ADDED -> {
+                        added++;
+                        upsert(upserts, removed, e.getItem());
+                    }
+                    case UPDATED -> {
+                        updated++;
+                        upsert(upserts, removed, e.getItem());
+                    }
+                    case REMOVED -> remove(upserts, removed, e.getItemId());
+                    case BATCH -> {
+                        added += e.getAddedCount() != null ? e.getAddedCount() : 0;
+                        updated += e.getUpdatedCount() != null ? e.getUpdatedCount() : 0;
+                        if (e.getItems() != null) e.getItems().forEach(i -> upsert(upserts, removed, i));
+                        if (e.getRemovedItemIds() != null) e.getRemovedItemIds().forEach(id -> remove(upserts, removed, id));
+                    }
+                }
+            }
+            ListEvent first = events.get(0);
+            boolean oneUser = events.stream().allMatch(e -> Objects.equals(e.getUserId(), first.getUserId()));
+            return ListEvent.builder()
+                    .type(ListEvent.Type.BATCH)
+                    .listId(first.getListId())
+                    .itemDisplayName((upserts.size() + removed.size()) + " פריטים")
+                    .quantityUnit("")
+                    .addedCount(added)
+                    .updatedCount(updated)
+                    .removedCount(removed.size())
+                    .items(new ArrayList<>(upserts.values()))
+                    .removedItemIds(new ArrayList<>(removed))
+                    .userId(oneUser ? first.getUserId() : null)
+                    .userDisplayName(oneUser ? first.getUserDisplayName() : null)
+                    .fromSeq(contiguous ? startSeq(first) : null)
+                    .seq(seq)
+                    .build();
+        }
+
+        private static long startSeq(ListEvent event) {
+            return event.getFromSeq() != null ? event.getFromSeq() : event.getSeq();
+        }
+
+        private static void upsert(Map<UUID, ListItemResponse> upserts, Set<UUID> removed, ListItemResponse item) {
+            if (item == null || removed.contains(item.getId())) return;
+            upserts.merge(item.getId(), item, (held, next) -> held.getVersion() > next.getVersion() ? held : next);
+        }
+
+        private static void remove(Map<UUID, ListItemResponse> upserts, Set<UUID> removed, UUID itemId) {
+            upserts.remove(itemId);
+            removed.add(itemId);
+        }
+    }
+}
@@ -1,66 +1,130 @@
 package com.listyyy.backend.websocket;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.list.ListChangeLog;
 import com.listyyy.backend.list.ListItem;
-import com.listyyy.backend.notification.FcmService;
+import com.listyyy.backend.list.ListItemResponse;
+import com.listyyy.backend.list.ListItemService;
+import com.listyyy.backend.notification.PushRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Builds list events (and their push text) inside the writing transaction;
+ * {@link EventDispatcher} sends them once it commits. Events carry the full item and the list's
+ * change sequence, so subscribers apply them without refetching. Call after the write is flushed.
+ */
 @Service
 @RequiredArgsConstructor
 public class ListEventPublisher {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private final FcmService fcmService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ListChangeLog changeLog;
 
-    public void publishItemAdded(UUID listId, ListItem item, User user) {
+    public void publishItemAdded(UUID listId, ListItem item, UserPrincipal user) {
         ListEvent event = ListEvent.builder()
                 .type(ListEvent.Type.ADDED)
                 .listId(listId)
                 .itemId(item.getId())
+                .item(ListItemResponse.from(item))
                 .itemDisplayName(item.getDisplayName())
                 .quantityUnit(item.getQuantity() + " " + item.getUnit())
-                .userId(user.getId())
-                .userDisplayName(user.getDisplayName() != null ? user.getDisplayName() : user.getEmail() != null ? user.getEmail() : user.getPhone())
+                .userId(user.id())
+                .userDisplayName(user.label())
+                .seq(changeLog.nextSeq(listId))
                 .build();
-        messagingTemplate.convertAndSend("/topic/lists/" + listId, event);
-        String who = user.getDisplayName() != null ? user.getDisplayName() : user.getEmail() != null ? user.getEmail() : user.getPhone();
-        String msg = who + " הוסיף: " + item.getDisplayName() + " " + item.getQuantity() + " " + item.getUnit();
-        fcmService.notifyListUpdated(listId, user.getId(), "Listyyy", msg);
+        String msg = user.label() + " הוסיף: " + item.getDisplayName() + " " + item.getQuantity() + " " + item.getUnit();
+        broadcast(listId, event, msg, user, 1, 0, 0);
     }
 
-    public void publishItemRemoved(UUID listId, UUID itemId, String itemDisplayName, String quantityUnit, User user) {
+    public void publishItemRemoved(UUID listId, UUID itemId, String itemDisplayName, String quantityUnit, UserPrincipal user) {
         ListEvent event = ListEvent.builder()
                 .type(ListEvent.Type.REMOVED)
                 .listId(listId)
                 .itemId(itemId)
                 .itemDisplayName(itemDisplayName)
                 .quantityUnit(quantityUnit)
-                .userId(user.getId())
-                .userDisplayName(user.getDisplayName() != null ? user.getDisplayName() : user.getEmail() != null ? user.getEmail() : user.getPhone())
+                .userId(user.id())
+                .userDisplayName(user.label())
+                .seq(changeLog.nextSeq(listId))
                 .build();
-        messagingTemplate.convertAndSend("/topic/lists/" + listId, event);
-        String who = user.getDisplayName() != null ? user.getDisplayName() : user.getEmail() != null ? user.getEmail() : user.getPhone();
-        String msg = who + " הסיר: " + itemDisplayName + " " + quantityUnit;
-        fcmService.notifyListUpdated(listId, user.getId(), "Listyyy", msg);
+        String msg = user.label() + " הסיר: " + itemDisplayName + " " + quantityUnit;
+        broadcast(listId, event, msg, user, 0, 0, 1);
     }
 
-    public void publishItemUpdated(UUID listId, ListItem item, User user) {
+    /** One event and one push for a whole batch; a single-operation batch looks like the plain event. */
+    public void publishBatch(UUID listId, List<ListItemService.BatchOutcome> applied, UserPrincipal user) {
+        if (applied.size() == 1) {
+            ListItemService.BatchOutcome only = applied.get(0);
+            switch (only.op()) {
+                case ADD -> publishItemAdded(listId, only.item(), user);
+                case UPDATE -> publishItemUpdated(listId, only.item(), user);
+                case REMOVE -> publishItemRemoved(listId, only.itemId(), only.itemDisplayName(), only.quantityUnit(), user);
+            }
+            return;
+        }
+        int added = 0, updated = 0, removed = 0;
+        List<ListItemResponse> items = new ArrayList<>();
+        List<UUID> removedItemIds = new ArrayList<>();
+        for (ListItemService.BatchOutcome o : applied) {
+            switch (o.op()) {
+                case ADD -> {
+                    added++;
+                    items.add(ListItemResponse.from(o.item()));
+                }
+                case UPDATE -> {
+                    updated++;
+                    items.add(ListItemResponse.from(o.item()));
+                }
+                case REMOVE -> {
+                    removed++;
+                    removedItemIds.add(o.itemId());
+                }
+            }
+        }
+        String summary = applied.size() + " פריטים";
+        ListEvent event = ListEvent.builder()
+                .type(ListEvent.Type.BATCH)
+                .listId(listId)
+                .itemDisplayName(summary)
+                .quantityUnit("")
+                .addedCount(added)
+                .updatedCount(updated)
+                .removedCount(removed)
+                .items(items)
+                .removedItemIds(removedItemIds)
+                .userId(user.id())
+                .userDisplayName(user.label())
+                .seq(changeLog.nextSeq(listId))
+                .build();
+        String msg = user.label() + " עדכן: " + summary;
+        broadcast(listId, event, msg, user, added, updated, removed);
+    }
+
+    public void publishItemUpdated(UUID listId, ListItem item, UserPrincipal user) {
         ListEvent event = ListEvent.builder()
                 .type(ListEvent.Type.UPDATED)
                 .listId(listId)
                 .itemId(item.getId())
+                .item(ListItemResponse.from(item))
                 .itemDisplayName(item.getDisplayName())
                 .quantityUnit(item.getQuantity() + " " + item.getUnit())
-                .userId(user.getId())
-                .userDisplayName(user.getDisplayName() != null ? user.getDisplayName() : user.getEmail() != null ? user.getEmail() : user.getPhone())
+                .userId(user.id())
+                .userDisplayName(user.label())
+                .seq(changeLog.nextSeq(listId))
                 .build();
-        messagingTemplate.convertAndSend("/topic/lists/" + listId, event);
-        String who = user.getDisplayName() != null ? user.getDisplayName() : user.getEmail() != null ? user.getEmail() : user.getPhone();
-        String msg = who + " עדכן: " + item.getDisplayName() + " " + item.getQuantity() + " " + item.getUnit();
-        fcmService.notifyListUpdated(listId, user.getId(), "Listyyy", msg);
+        String msg = user.label() + " עדכן: " + item.getDisplayName() + " " + item.getQuantity() + " " + item.getUnit();
+        broadcast(listId, event, msg, user, 0, 1, 0);
+    }
+
+    private void broadcast(UUID listId, ListEvent event, String pushBody, UserPrincipal user,
+                           int added, int updated, int removed) {
+        eventPublisher.publishEvent(new BroadcastEvent("/topic/lists/" + listId, event,
+                new PushRequest(listId, user.id(), user.label(), "Listyyy", pushBody, added, updated, removed)));
     }
 }
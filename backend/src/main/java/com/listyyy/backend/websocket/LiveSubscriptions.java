@@ -0,0 +1,98 @@
+package com.listyyy.backend.websocket;
+
+import com.listyyy.backend.auth.UserPrincipal;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is subscribed to each list and workspace topic on this replica right now, kept from the session's
+ * SUBSCRIBE, UNSUBSCRIBE and disconnect (only subscriptions {@link WebSocketConfig} let through are seen).
+ * Looked up by destination, unlike {@code SimpUserRegistry}, which walks every session.
+ */
+@Component
+public class LiveSubscriptions {
+
+    private static final String LIST_PREFIX = "/topic/lists/";
+    private static final String WORKSPACE_PREFIX = "/topic/workspaces/";
+
+    /** Session id to its subscriptions (subscription id to destination). */
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    /** Destination to its subscribers, with how many subscriptions each has there; changed only in compute. */
+    private final Map<String, Map<UUID, Integer>> destinations = new ConcurrentHashMap<>();
+    private final Map<String, UUID> sessionUsers = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        UUID userId = userId(event);
+        if (destination == null || userId == null || accessor.getSessionId() == null) return;
+        if (!destination.startsWith(LIST_PREFIX) && !destination.startsWith(WORKSPACE_PREFIX)) return;
+        sessionUsers.put(accessor.getSessionId(), userId);
+        sessions.computeIfAbsent(accessor.getSessionId(), s -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+        destinations.compute(destination, (d, users) -> {
+            if (users == null) users = new ConcurrentHashMap<>();
+            users.merge(userId, 1, Integer::sum);
+            return users;
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (subscriptions == null || accessor.getSubscriptionId() == null) return;
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) release(destination, sessionUsers.get(accessor.getSessionId()));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        UUID userId = sessionUsers.remove(event.getSessionId());
+        if (subscriptions != null) subscriptions.values().forEach(destination -> release(destination, userId));
+    }
+
+    /** The users with at least one live subscription to the destination. */
+    public Set<UUID> usersOn(String destination) {
+        Map<UUID, Integer> users = destinations.get(destination);
+        return users != null ? Set.copyOf(users.keySet()) : Set.of();
+    }
+
+    public int subscriptionsOn(String destination) {
+        Map<UUID, Integer> users = destinations.get(destination);
+        return users != null ? users.values().stream().mapToInt(Integer::intValue).sum() : 0;
+    }
+
+    public Set<UUID> usersOnList(UUID listId) {
+        return usersOn(LIST_PREFIX + listId);
+    }
+
+    private void release(String destination, UUID userId) {
+        if (userId == null) return;
+        destinations.computeIfPresent(destination, (d, users) -> {
+            users.computeIfPresent(userId, (u, count) -> count > 1 ? count - 1 : null);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private static UUID userId(AbstractSubProtocolEvent event) {
+        if (event.getUser() instanceof UsernamePasswordAuthenticationToken auth
+                && auth.getPrincipal() instanceof UserPrincipal user) {
+            return user.id();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.listyyy.backend.websocket;
+
+/** An event another replica sent, for this replica's subscribers (published by a {@link ClusterRelay}). */
+public record RelayedEvent(String destination, Object payload) {}
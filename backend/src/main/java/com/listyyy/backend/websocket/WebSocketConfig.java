@@ -1,15 +1,19 @@
 package com.listyyy.backend.websocket;
 
 import com.listyyy.backend.auth.JwtService;
-import com.listyyy.backend.auth.User;
-import com.listyyy.backend.auth.UserRepository;
+import com.listyyy.backend.auth.PrincipalCache;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.list.ListAccessService;
 import com.listyyy.backend.workspace.WorkspaceAccessService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -23,8 +27,6 @@ import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBr
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
-import org.springframework.beans.factory.annotation.Value;
-
 import java.util.Collections;
 import java.util.UUID;
 import java.util.regex.Matcher;
@@ -37,14 +39,19 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private static final Pattern LIST_TOPIC_PATTERN = Pattern.compile("^/topic/lists/([0-9a-fA-F-]{36})$");
-    private static final Pattern WORKSPACE_TOPIC_PATTERN = Pattern.compile("^/topic/workspaces/([0-9a-fA-F-]{36})$");
+    // The topics, and their replay subscriptions (see EventReplayController)
+    private static final Pattern LIST_TOPIC_PATTERN =
+            Pattern.compile("^/topic/lists/([0-9a-fA-F-]{36})$|^/app/lists/([0-9a-fA-F-]{36})/replay$");
+    private static final Pattern WORKSPACE_TOPIC_PATTERN =
+            Pattern.compile("^/topic/workspaces/([0-9a-fA-F-]{36})$|^/app/workspaces/([0-9a-fA-F-]{36})/replay$");
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
     private final ListAccessService listAccessService;
     private final WorkspaceAccessService workspaceAccessService;
 
+    private final Environment environment;
+
     @Value("${listyyy.cors.allowed-origins:http://localhost:5173}")
     private String corsAllowedOrigins;
 
@@ -57,12 +64,21 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /queue carries per-session replies (item command acks) behind /user destinations
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        if (virtualThreads()) config.configureBrokerChannel().executor(virtualExecutor("ws-broker-"));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads()) registration.executor(virtualExecutor("ws-outbound-"));
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Item commands block on the database; on virtual threads they wait without holding a platform thread
+        if (virtualThreads()) registration.executor(virtualExecutor("ws-inbound-"));
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -73,43 +89,47 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     String auth = accessor.getFirstNativeHeader("Authorization");
                     if (auth != null && auth.startsWith("Bearer ")) {
                         String token = auth.substring(7);
-                        if (jwtService.validateToken(token)) {
+                        jwtService.parseAndVerify(token).ifPresent(claims -> {
                             try {
-                                UUID userId = jwtService.getUserIdFromToken(token);
-                                userRepository.findById(userId).ifPresent(user -> {
+                                UUID userId = UUID.fromString(claims.getSubject());
+                                principalCache.get(userId).ifPresent(user -> {
                                     accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
                                 });
                             } catch (Exception ignored) {
                             }
-                        }
+                        });
                     }
                 }
 
                 if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
                     String destination = accessor.getDestination();
+                    if (destination != null && destination.startsWith("/queue/")) {
+                        // Only reachable through /user/queue/..., which resolves to the caller's own session
+                        throw new IllegalArgumentException("אין גישה");
+                    }
                     if (destination != null) {
                         Matcher listMatcher = LIST_TOPIC_PATTERN.matcher(destination);
                         Matcher wsMatcher = WORKSPACE_TOPIC_PATTERN.matcher(destination);
                         if (listMatcher.matches()) {
-                            User user = getAuthenticatedUser(accessor);
+                            UserPrincipal user = getAuthenticatedUser(accessor);
                             if (user == null) {
                                 log.warn("Unauthenticated SUBSCRIBE to {}", destination);
                                 throw new IllegalArgumentException("אין גישה");
                             }
-                            UUID listId = UUID.fromString(listMatcher.group(1));
+                            UUID listId = UUID.fromString(idGroup(listMatcher));
                             if (!listAccessService.canAccess(user, listId)) {
-                                log.warn("User {} denied SUBSCRIBE to list {}", user.getId(), listId);
+                                log.warn("User {} denied SUBSCRIBE to list {}", user.id(), listId);
                                 throw new IllegalArgumentException("אין גישה");
                             }
                         } else if (wsMatcher.matches()) {
-                            User user = getAuthenticatedUser(accessor);
+                            UserPrincipal user = getAuthenticatedUser(accessor);
                             if (user == null) {
                                 log.warn("Unauthenticated SUBSCRIBE to {}", destination);
                                 throw new IllegalArgumentException("אין גישה");
                             }
-                            UUID workspaceId = UUID.fromString(wsMatcher.group(1));
+                            UUID workspaceId = UUID.fromString(idGroup(wsMatcher));
                             if (!workspaceAccessService.canAccess(user, workspaceId)) {
-                                log.warn("User {} denied SUBSCRIBE to workspace {}", user.getId(), workspaceId);
+                                log.warn("User {} denied SUBSCRIBE to workspace {}", user.id(), workspaceId);
                                 throw new IllegalArgumentException("אין גישה");
                             }
                         }
@@ -121,10 +141,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         });
     }
 
-    private User getAuthenticatedUser(StompHeaderAccessor accessor) {
+    private boolean virtualThreads() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    private static SimpleAsyncTaskExecutor virtualExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    private static String idGroup(Matcher matcher) {
+        return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    }
+
+    private UserPrincipal getAuthenticatedUser(StompHeaderAccessor accessor) {
         if (accessor.getUser() instanceof UsernamePasswordAuthenticationToken auth) {
             Object principal = auth.getPrincipal();
-            if (principal instanceof User user) {
+            if (principal instanceof UserPrincipal user) {
                 return user;
             }
         }
@@ -1,7 +1,9 @@
 package com.listyyy.backend.websocket;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.UUID;
 
@@ -11,6 +13,8 @@ import java.util.UUID;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class WorkspaceEvent {
 
     public enum EntityType { WORKSPACE, CATEGORY, PRODUCT, LIST }
@@ -23,4 +27,15 @@ public class WorkspaceEvent {
     private String entityName;
     private UUID userId;
     private String userDisplayName;
+    /**
+     * The entity as its GET returns it (CategoryDto, ProductDto, ListResponse or WorkspaceDto), so
+     * clients can patch their caches instead of reloading; null for DELETED.
+     */
+    private Object entity;
+    /** Optimistic-locking version of {@link #entity}; a client holding a newer one ignores the event. */
+    private Long version;
+    /** Set as the event is sent, for replay on reconnect (see {@link EventReplayBuffer}). */
+    private Long seq;
+    /** The replica that set {@link #seq}; sequences from different replicas cannot be compared. */
+    private String replica;
 }
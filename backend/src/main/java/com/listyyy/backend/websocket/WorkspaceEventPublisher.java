@@ -1,39 +1,41 @@
 package com.listyyy.backend.websocket;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
 
 /**
  * Publishes workspace-level events (category/product/list/workspace changes)
- * to all subscribers on /topic/workspaces/{workspaceId}.
+ * to all subscribers on /topic/workspaces/{workspaceId}, after the current transaction commits.
  */
 @Service
 @RequiredArgsConstructor
 public class WorkspaceEventPublisher {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     public void publish(UUID workspaceId, WorkspaceEvent.EntityType entityType,
-                        WorkspaceEvent.Action action, UUID entityId, String entityName, User user) {
+                        WorkspaceEvent.Action action, UUID entityId, String entityName, UserPrincipal user) {
+        publish(workspaceId, entityType, action, entityId, entityName, null, null, user);
+    }
+
+    /** Same, carrying the changed entity's DTO and version (built now, inside the transaction). */
+    public void publish(UUID workspaceId, WorkspaceEvent.EntityType entityType, WorkspaceEvent.Action action,
+                        UUID entityId, String entityName, Object entity, Long version, UserPrincipal user) {
         WorkspaceEvent event = WorkspaceEvent.builder()
                 .entityType(entityType)
                 .action(action)
                 .workspaceId(workspaceId)
                 .entityId(entityId)
                 .entityName(entityName)
-                .userId(user.getId())
-                .userDisplayName(getUserDisplayName(user))
+                .userId(user.id())
+                .userDisplayName(user.label())
+                .entity(entity)
+                .version(version)
                 .build();
-        messagingTemplate.convertAndSend("/topic/workspaces/" + workspaceId, event);
-    }
-
-    private static String getUserDisplayName(User user) {
-        if (user.getDisplayName() != null) return user.getDisplayName();
-        if (user.getEmail() != null) return user.getEmail();
-        return user.getPhone();
+        eventPublisher.publishEvent(new BroadcastEvent("/topic/workspaces/" + workspaceId, event, null));
     }
 }
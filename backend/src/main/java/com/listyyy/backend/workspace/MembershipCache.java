@@ -0,0 +1,123 @@
+package com.listyyy.backend.workspace;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Caches a user's role in a workspace (or the fact that they are not a member).
+ * <p>
+ * Lookups are memoized for the current HTTP request, so repeated access checks in one request cost
+ * at most one query, and shared across requests for a short TTL. Membership changes must call
+ * {@link #invalidate} / {@link #invalidateWorkspace}; entries are dropped immediately and again after
+ * commit, so a concurrent request cannot re-cache the pre-commit role.
+ */
+@Component
+@RequiredArgsConstructor
+public class MembershipCache {
+
+    private static final String REQUEST_ATTRIBUTE = MembershipCache.class.getName();
+
+    private final WorkspaceMemberRepository workspaceMemberRepository;
+
+    @Value("${listyyy.workspace.membership-cache.ttl-seconds:10}")
+    private long ttlSeconds;
+
+    @Value("${listyyy.workspace.membership-cache.max-size:50000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The user's role in the workspace, or empty if they are not a member. */
+    public Optional<String> role(UUID userId, UUID workspaceId) {
+        Key key = new Key(userId, workspaceId);
+        Map<Key, Optional<String>> memo = requestMemo();
+        if (memo != null && memo.containsKey(key)) return memo.get(key);
+
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        Optional<String> role;
+        if (entry != null && entry.expiresAt() > now) {
+            role = entry.role();
+        } else {
+            role = workspaceMemberRepository.findRole(workspaceId, userId);
+            put(key, new Entry(role, now + ttlSeconds * 1000));
+        }
+        if (memo != null) memo.put(key, role);
+        return role;
+    }
+
+    /** Seed the cache with a role that was fetched together with the entity being accessed. */
+    public void remember(UUID userId, UUID workspaceId, Optional<String> role) {
+        Key key = new Key(userId, workspaceId);
+        put(key, new Entry(role, System.currentTimeMillis() + ttlSeconds * 1000));
+        Map<Key, Optional<String>> memo = requestMemo();
+        if (memo != null) memo.put(key, role);
+    }
+
+    public void invalidate(UUID userId, UUID workspaceId) {
+        Key key = new Key(userId, workspaceId);
+        evict(k -> k.equals(key));
+    }
+
+    public void invalidateWorkspace(UUID workspaceId) {
+        evict(k -> k.workspaceId().equals(workspaceId));
+    }
+
+    private void evict(Predicate<Key> matches) {
+        entries.keySet().removeIf(matches);
+        Map<Key, Optional<String>> memo = requestMemo();
+        if (memo != null) memo.keySet().removeIf(matches);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.keySet().removeIf(matches);
+                }
+            });
+        }
+    }
+
+    private void put(Key key, Entry entry) {
+        if (entries.size() >= maxSize) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+            // Still full of live entries: drop arbitrary ones; they reload on next use
+            Iterator<Key> it = entries.keySet().iterator();
+            while (entries.size() >= maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    /** Per-request memo, or null outside an HTTP request (e.g. STOMP, async tasks). */
+    @SuppressWarnings("unchecked")
+    private static Map<Key, Optional<String>> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return null;
+        Object memo = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<Key, Optional<String>>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Key, Optional<String>>) memo;
+    }
+
+    private record Key(UUID userId, UUID workspaceId) {}
+
+    private record Entry(Optional<String> role, long expiresAt) {}
+}
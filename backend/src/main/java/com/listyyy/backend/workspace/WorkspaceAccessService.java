@@ -1,11 +1,12 @@
 package com.listyyy.backend.workspace;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -16,36 +17,44 @@ import java.util.UUID;
 public class WorkspaceAccessService {
 
     private final WorkspaceRepository workspaceRepository;
-    private final WorkspaceMemberRepository workspaceMemberRepository;
+    private final MembershipCache membershipCache;
 
-    public boolean canAccess(User user, UUID workspaceId) {
+    public boolean canAccess(UserPrincipal user, UUID workspaceId) {
         if (user == null) return false;
-        return workspaceMemberRepository.existsByWorkspaceIdAndUserId(workspaceId, user.getId());
+        return membershipCache.role(user.id(), workspaceId).isPresent();
     }
 
-    public boolean canEdit(User user, UUID workspaceId) {
+    public boolean canEdit(UserPrincipal user, UUID workspaceId) {
         return canAccess(user, workspaceId);
     }
 
     /** Only workspace owner can delete workspace or manage members. */
-    public boolean isOwner(User user, UUID workspaceId) {
+    public boolean isOwner(UserPrincipal user, UUID workspaceId) {
         if (user == null) return false;
-        return workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, user.getId())
-                .map(m -> "owner".equals(m.getRole()))
+        return membershipCache.role(user.id(), workspaceId)
+                .map("owner"::equals)
                 .orElse(false);
     }
 
-    public Workspace getWorkspaceOrThrow(UUID workspaceId, User user) {
-        Workspace workspace = workspaceRepository.findById(workspaceId)
+    public Workspace getWorkspaceOrThrow(UUID workspaceId, UserPrincipal user) {
+        if (user == null) throw new AccessDeniedException("אין גישה");
+        Object[] row = workspaceRepository.findWithMemberRole(workspaceId, user.id()).stream().findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("המרחב לא נמצא"));
-        if (!canAccess(user, workspaceId)) throw new AccessDeniedException("אין גישה");
-        return workspace;
+        requireMember(user, workspaceId, (String) row[1]);
+        return (Workspace) row[0];
+    }
+
+    /**
+     * For access services that fetched an entity together with the user's role in its workspace:
+     * caches the role for the rest of the request and throws unless the user is a member.
+     */
+    public void requireMember(UserPrincipal user, UUID workspaceId, String role) {
+        membershipCache.remember(user.id(), workspaceId, Optional.ofNullable(role));
+        if (role == null) throw new AccessDeniedException("אין גישה");
     }
 
     /** Get the user's role in the workspace, or null if not a member. */
-    public String getRole(User user, UUID workspaceId) {
-        return workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, user.getId())
-                .map(WorkspaceMember::getRole)
-                .orElse(null);
+    public String getRole(UserPrincipal user, UUID workspaceId) {
+        return membershipCache.role(user.id(), workspaceId).orElse(null);
     }
 }
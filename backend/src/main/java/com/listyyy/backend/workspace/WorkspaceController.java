@@ -1,6 +1,6 @@
 package com.listyyy.backend.workspace;
 
-import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.sharing.InviteRequest;
 import com.listyyy.backend.sharing.ListMemberDto;
 import jakarta.validation.Valid;
@@ -21,13 +21,13 @@ public class WorkspaceController {
     private final WorkspaceAccessService workspaceAccessService;
 
     @GetMapping
-    public ResponseEntity<List<WorkspaceDto>> list(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<WorkspaceDto>> list(@AuthenticationPrincipal UserPrincipal user) {
         if (user == null) return ResponseEntity.status(401).build();
         return ResponseEntity.ok(workspaceService.listWorkspaces(user));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<WorkspaceDto> get(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<WorkspaceDto> get(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal user) {
         if (user == null) return ResponseEntity.status(401).build();
         Workspace w = workspaceAccessService.getWorkspaceOrThrow(id, user);
         String role = workspaceAccessService.getRole(user, id);
@@ -45,7 +45,7 @@ public class WorkspaceController {
     @PostMapping
     public ResponseEntity<WorkspaceDto> create(
             @Valid @RequestBody CreateWorkspaceRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         Workspace w = workspaceService.createWorkspace(user, req.getName(), req.getIconId());
@@ -62,7 +62,7 @@ public class WorkspaceController {
     @PatchMapping("/{id}")
     public ResponseEntity<WorkspaceDto> update(
             @PathVariable UUID id,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @RequestBody UpdateWorkspaceRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
@@ -80,7 +80,7 @@ public class WorkspaceController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<Void> delete(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal user) {
         if (user == null) return ResponseEntity.status(401).build();
         workspaceService.deleteWorkspace(id, user);
         return ResponseEntity.noContent().build();
@@ -89,7 +89,7 @@ public class WorkspaceController {
     // --- Members ---
 
     @GetMapping("/{id}/members")
-    public ResponseEntity<List<ListMemberDto>> getMembers(@PathVariable UUID id, @AuthenticationPrincipal User user) {
+    public ResponseEntity<List<ListMemberDto>> getMembers(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal user) {
         if (user == null) return ResponseEntity.status(401).build();
         return ResponseEntity.ok(workspaceService.getMembers(id, user));
     }
@@ -97,7 +97,7 @@ public class WorkspaceController {
     @PostMapping("/{id}/members")
     public ResponseEntity<ListMemberDto> invite(
             @PathVariable UUID id,
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal UserPrincipal user,
             @Valid @RequestBody InviteRequest req
     ) {
         if (user == null) return ResponseEntity.status(401).build();
@@ -108,7 +108,7 @@ public class WorkspaceController {
     public ResponseEntity<Void> removeMember(
             @PathVariable UUID id,
             @PathVariable UUID memberUserId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal UserPrincipal user
     ) {
         if (user == null) return ResponseEntity.status(401).build();
         workspaceService.removeMember(id, memberUserId, user);
@@ -26,10 +26,15 @@ public interface WorkspaceMemberRepository extends JpaRepository<WorkspaceMember
 
     boolean existsByWorkspaceIdAndUserId(UUID workspaceId, UUID userId);
 
+    @Query("SELECT m.role FROM WorkspaceMember m WHERE m.workspaceId = :workspaceId AND m.userId = :userId")
+    Optional<String> findRole(UUID workspaceId, UUID userId);
+
     @Modifying
     @Query("DELETE FROM WorkspaceMember m WHERE m.workspaceId = :workspaceId")
     void deleteByWorkspaceId(UUID workspaceId);
 
     @Query("SELECT m.workspaceId, COUNT(m) FROM WorkspaceMember m GROUP BY m.workspaceId")
     List<Object[]> countMembersByWorkspace();
+
+    long countByWorkspaceId(UUID workspaceId);
 }
@@ -12,6 +12,10 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, UUID> {
     @Query("SELECT DISTINCT w FROM Workspace w JOIN WorkspaceMember m ON m.workspaceId = w.id WHERE m.userId = :userId ORDER BY w.name ASC")
     List<Workspace> findVisibleToUser(UUID userId);
 
+    /** The workspace and the user's role in it (null when not a member) as one row, or no row. */
+    @Query("SELECT w, m.role FROM Workspace w LEFT JOIN WorkspaceMember m ON m.workspaceId = w.id AND m.userId = :userId WHERE w.id = :workspaceId")
+    List<Object[]> findWithMemberRole(UUID workspaceId, UUID userId);
+
     @Query("SELECT COUNT(w) > 0 FROM Workspace w JOIN WorkspaceMember m ON m.workspaceId = w.id WHERE m.userId = :userId AND w.name = :name")
     boolean existsVisibleToUserWithName(UUID userId, String name);
 
@@ -1,6 +1,7 @@
 package com.listyyy.backend.workspace;
 
 import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
 import com.listyyy.backend.auth.UserRepository;
 import com.listyyy.backend.exception.AccessDeniedException;
 import com.listyyy.backend.exception.ResourceNotFoundException;
@@ -25,18 +26,19 @@ public class WorkspaceService {
     private final WorkspaceRepository workspaceRepository;
     private final WorkspaceMemberRepository workspaceMemberRepository;
     private final WorkspaceAccessService workspaceAccessService;
+    private final MembershipCache membershipCache;
     private final UserRepository userRepository;
     private final WorkspaceEventPublisher workspaceEventPublisher;
 
-    public List<WorkspaceDto> listWorkspaces(User user) {
-        List<Workspace> workspaces = workspaceRepository.findVisibleToUser(user.getId());
+    public List<WorkspaceDto> listWorkspaces(UserPrincipal user) {
+        List<Workspace> workspaces = workspaceRepository.findVisibleToUser(user.id());
         Map<UUID, Integer> memberCounts = workspaceMemberRepository.countMembersByWorkspace().stream()
                 .collect(Collectors.toMap(
                         row -> (UUID) row[0],
                         row -> ((Number) row[1]).intValue()
                 ));
         // Batch-load user roles to avoid N+1 queries (one per workspace)
-        Map<UUID, String> rolesByWorkspace = workspaceMemberRepository.findByUserIdWithRole(user.getId()).stream()
+        Map<UUID, String> rolesByWorkspace = workspaceMemberRepository.findByUserIdWithRole(user.id()).stream()
                 .collect(Collectors.toMap(WorkspaceMember::getWorkspaceId, WorkspaceMember::getRole));
         return workspaces.stream()
                 .map(w -> WorkspaceDto.builder()
@@ -51,9 +53,9 @@ public class WorkspaceService {
     }
 
     @Transactional
-    public Workspace createWorkspace(User user, String name, String iconId) {
+    public Workspace createWorkspace(UserPrincipal user, String name, String iconId) {
         String trimmedName = name.trim();
-        if (workspaceRepository.existsVisibleToUserWithName(user.getId(), trimmedName)) {
+        if (workspaceRepository.existsVisibleToUserWithName(user.id(), trimmedName)) {
             throw new IllegalArgumentException("כבר קיים מרחב עבודה בשם זה");
         }
         Workspace workspace = Workspace.builder()
@@ -63,12 +65,13 @@ public class WorkspaceService {
         workspace = workspaceRepository.save(workspace);
         WorkspaceMember member = WorkspaceMember.builder()
                 .workspaceId(workspace.getId())
-                .userId(user.getId())
+                .userId(user.id())
                 .workspace(workspace)
-                .user(user)
+                .user(userRepository.getReferenceById(user.id()))
                 .role("owner")
                 .build();
         workspaceMemberRepository.save(member);
+        membershipCache.invalidate(user.id(), workspace.getId());
         return workspace;
     }
 
@@ -77,11 +80,11 @@ public class WorkspaceService {
      */
     @Transactional
     public Workspace createDefaultWorkspace(User user) {
-        return createWorkspace(user, "הרשימות שלי", null);
+        return createWorkspace(UserPrincipal.of(user), "הרשימות שלי", null);
     }
 
     @Transactional
-    public Workspace updateWorkspace(UUID workspaceId, User user, UpdateWorkspaceRequest req) {
+    public Workspace updateWorkspace(UUID workspaceId, UserPrincipal user, UpdateWorkspaceRequest req) {
         Workspace workspace = workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
         if (!workspaceAccessService.isOwner(user, workspaceId)) {
             throw new AccessDeniedException("רק בעל המרחב יכול לערוך");
@@ -90,34 +93,44 @@ public class WorkspaceService {
         if (req.getName() != null && !req.getName().isBlank()) {
             String trimmedName = req.getName().trim();
             if (!trimmedName.equals(workspace.getName()) &&
-                    workspaceRepository.existsVisibleToUserWithNameAndIdNot(user.getId(), trimmedName, workspaceId)) {
+                    workspaceRepository.existsVisibleToUserWithNameAndIdNot(user.id(), trimmedName, workspaceId)) {
                 throw new IllegalArgumentException("כבר קיים מרחב עבודה בשם זה");
             }
             workspace.setName(trimmedName);
         }
         if (req.getIconId() != null) workspace.setIconId(req.getIconId().isBlank() ? null : req.getIconId());
-        workspace = workspaceRepository.save(workspace);
+        // Flush so the response and the event carry the bumped optimistic-locking version
+        workspace = workspaceRepository.saveAndFlush(workspace);
+        // Role is per member, so the broadcast copy leaves it out; clients keep their own
+        WorkspaceDto dto = WorkspaceDto.builder()
+                .id(workspace.getId())
+                .name(workspace.getName())
+                .iconId(workspace.getIconId())
+                .memberCount((int) workspaceMemberRepository.countByWorkspaceId(workspaceId))
+                .version(workspace.getVersion())
+                .build();
         workspaceEventPublisher.publish(workspace.getId(), WorkspaceEvent.EntityType.WORKSPACE,
-                WorkspaceEvent.Action.UPDATED, workspace.getId(), workspace.getName(), user);
+                WorkspaceEvent.Action.UPDATED, workspace.getId(), workspace.getName(), dto, workspace.getVersion(), user);
         return workspace;
     }
 
     @Transactional
-    public void deleteWorkspace(UUID workspaceId, User user) {
+    public void deleteWorkspace(UUID workspaceId, UserPrincipal user) {
         workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
         if (!workspaceAccessService.isOwner(user, workspaceId)) {
             throw new AccessDeniedException("רק בעל המרחב יכול למחוק");
         }
         // Check this isn't the user's only workspace
-        List<Workspace> userWorkspaces = workspaceRepository.findVisibleToUser(user.getId());
+        List<Workspace> userWorkspaces = workspaceRepository.findVisibleToUser(user.id());
         if (userWorkspaces.size() <= 1) {
             throw new IllegalArgumentException("לא ניתן למחוק את המרחב האחרון שלך");
         }
         workspaceMemberRepository.deleteByWorkspaceId(workspaceId);
         workspaceRepository.deleteById(workspaceId);
+        membershipCache.invalidateWorkspace(workspaceId);
     }
 
-    public List<ListMemberDto> getMembers(UUID workspaceId, User user) {
+    public List<ListMemberDto> getMembers(UUID workspaceId, UserPrincipal user) {
         workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
         return workspaceMemberRepository.findByWorkspaceIdWithUser(workspaceId).stream()
                 .map(m -> ListMemberDto.builder()
@@ -132,13 +145,13 @@ public class WorkspaceService {
     }
 
     @Transactional
-    public ListMemberDto invite(UUID workspaceId, User user, InviteRequest req) {
+    public ListMemberDto invite(UUID workspaceId, UserPrincipal user, InviteRequest req) {
         workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
         if (!workspaceAccessService.isOwner(user, workspaceId)) {
             throw new AccessDeniedException("רק בעל המרחב יכול להזמין");
         }
         User invitee = resolveInvitee(req);
-        if (invitee.getId().equals(user.getId())) throw new IllegalArgumentException("לא ניתן להזמין את עצמך");
+        if (invitee.getId().equals(user.id())) throw new IllegalArgumentException("לא ניתן להזמין את עצמך");
         if (workspaceMemberRepository.existsByWorkspaceIdAndUserId(workspaceId, invitee.getId())) {
             throw new IllegalArgumentException("המשתמש כבר חבר במרחב");
         }
@@ -151,6 +164,7 @@ public class WorkspaceService {
                 .role("editor")
                 .build();
         workspaceMemberRepository.save(member);
+        membershipCache.invalidate(invitee.getId(), workspaceId);
         return ListMemberDto.builder()
                 .userId(invitee.getId())
                 .displayName(invitee.getDisplayName())
@@ -162,17 +176,18 @@ public class WorkspaceService {
     }
 
     @Transactional
-    public void removeMember(UUID workspaceId, UUID memberUserId, User user) {
+    public void removeMember(UUID workspaceId, UUID memberUserId, UserPrincipal user) {
         workspaceAccessService.getWorkspaceOrThrow(workspaceId, user);
         WorkspaceMember target = workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, memberUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("החבר לא נמצא"));
         if ("owner".equals(target.getRole())) {
             throw new IllegalArgumentException("לא ניתן להסיר את בעל המרחב");
         }
-        if (!workspaceAccessService.isOwner(user, workspaceId) && !user.getId().equals(memberUserId)) {
+        if (!workspaceAccessService.isOwner(user, workspaceId) && !user.id().equals(memberUserId)) {
             throw new AccessDeniedException("רק בעל המרחב יכול להסיר אחרים");
         }
         workspaceMemberRepository.deleteById(new WorkspaceMemberId(workspaceId, memberUserId));
+        membershipCache.invalidate(memberUserId, workspaceId);
     }
 
     private User resolveInvitee(InviteRequest req) {
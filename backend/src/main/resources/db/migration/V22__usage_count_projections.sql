@@ -0,0 +1,32 @@
+-- Incrementally maintained add-count projections for the product bank.
+-- Replaces the GROUP BY over all list_items that ran on every product/category read.
+-- Rows are kept current by UsageCountService; this migration only backfills.
+
+CREATE TABLE product_usage_counts (
+    product_id   UUID PRIMARY KEY REFERENCES products(id) ON DELETE CASCADE,
+    workspace_id UUID NOT NULL REFERENCES workspaces(id) ON DELETE CASCADE,
+    add_count    BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE category_usage_counts (
+    category_id  UUID PRIMARY KEY REFERENCES categories(id) ON DELETE CASCADE,
+    workspace_id UUID NOT NULL REFERENCES workspaces(id) ON DELETE CASCADE,
+    add_count    BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_product_usage_counts_workspace ON product_usage_counts(workspace_id);
+CREATE INDEX idx_category_usage_counts_workspace ON category_usage_counts(workspace_id);
+
+INSERT INTO product_usage_counts (product_id, workspace_id, add_count)
+SELECT p.id, c.workspace_id, COUNT(li.id)
+FROM products p
+JOIN categories c ON c.id = p.category_id
+LEFT JOIN list_items li ON li.product_id = p.id
+GROUP BY p.id, c.workspace_id;
+
+INSERT INTO category_usage_counts (category_id, workspace_id, add_count)
+SELECT c.id, c.workspace_id, COUNT(li.id)
+FROM categories c
+LEFT JOIN products p ON p.category_id = c.id
+LEFT JOIN list_items li ON li.product_id = p.id
+GROUP BY c.id, c.workspace_id;
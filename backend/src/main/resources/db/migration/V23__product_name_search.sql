@@ -0,0 +1,20 @@
+-- Indexed, workspace-scoped product search.
+-- name_normalized is maintained by the application (HebrewNormalizer); this backfill must match it:
+-- strip niqqud/cantillation, fold final letters, collapse whitespace, lower-case.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE products ADD COLUMN name_normalized VARCHAR(255);
+
+UPDATE products
+SET name_normalized = lower(regexp_replace(btrim(translate(
+        regexp_replace(name_he, '[\u0591-\u05BD\u05BF\u05C1\u05C2\u05C4\u05C5\u05C7]', '', 'g'),
+        'ךםןףץ', 'כמנפצ')), '\s+', ' ', 'g'));
+
+ALTER TABLE products ALTER COLUMN name_normalized SET NOT NULL;
+
+CREATE INDEX idx_products_name_normalized_trgm ON products USING gin (name_normalized gin_trgm_ops);
+
+-- Visibility joins used by the search query
+CREATE INDEX IF NOT EXISTS idx_categories_workspace ON categories(workspace_id);
+CREATE INDEX IF NOT EXISTS idx_workspace_members_user ON workspace_members(user_id);
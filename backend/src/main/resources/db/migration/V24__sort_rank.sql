@@ -0,0 +1,25 @@
+-- Lexicographic position keys (see Rank): moving a row rewrites only that row.
+-- Byte-wise "C" collation so the database orders ranks exactly like the application compares them.
+-- Backfill keeps today's order: 8-digit keys from the old sort_order, ties broken by creation time.
+-- sort_order stays for older clients but no longer drives ordering.
+
+ALTER TABLE list_items ADD COLUMN sort_rank VARCHAR(64) COLLATE "C";
+UPDATE list_items SET sort_rank = r.rank
+FROM (SELECT id, lpad(row_number() OVER (PARTITION BY list_id ORDER BY sort_order, created_at, id)::text, 8, '0') AS rank
+      FROM list_items) r
+WHERE list_items.id = r.id;
+ALTER TABLE list_items ALTER COLUMN sort_rank SET NOT NULL;
+CREATE INDEX idx_list_items_list_rank ON list_items(list_id, sort_rank);
+
+-- Lists and categories are ordered per user across workspaces, so number them globally
+ALTER TABLE lists ADD COLUMN sort_rank VARCHAR(64) COLLATE "C";
+UPDATE lists SET sort_rank = r.rank
+FROM (SELECT id, lpad(row_number() OVER (ORDER BY sort_order, created_at, id)::text, 8, '0') AS rank FROM lists) r
+WHERE lists.id = r.id;
+ALTER TABLE lists ALTER COLUMN sort_rank SET NOT NULL;
+
+ALTER TABLE categories ADD COLUMN sort_rank VARCHAR(64) COLLATE "C";
+UPDATE categories SET sort_rank = r.rank
+FROM (SELECT id, lpad(row_number() OVER (ORDER BY sort_order, created_at, id)::text, 8, '0') AS rank FROM categories) r
+WHERE categories.id = r.id;
+ALTER TABLE categories ALTER COLUMN sort_rank SET NOT NULL;
@@ -0,0 +1,17 @@
+-- Delta sync for list items: a per-list change sequence, the sequence of each item's last write,
+-- and tombstones for removed items. Existing rows start at 1 so a first sync (since=0) returns them.
+
+ALTER TABLE lists ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE lists ADD COLUMN sync_floor_seq BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE list_items ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 1;
+CREATE INDEX idx_list_items_list_change_seq ON list_items(list_id, change_seq);
+
+CREATE TABLE list_item_tombstones (
+    item_id    UUID PRIMARY KEY,
+    list_id    UUID NOT NULL REFERENCES lists(id) ON DELETE CASCADE,
+    change_seq BIGINT NOT NULL,
+    deleted_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX idx_list_item_tombstones_list_seq ON list_item_tombstones(list_id, change_seq);
+CREATE INDEX idx_list_item_tombstones_deleted_at ON list_item_tombstones(deleted_at);
@@ -0,0 +1,5 @@
+-- Usage counts get a revision bumped on every adjustment, so the product-bank and category
+-- ETags (aggregates over versions) also change when only a count did.
+
+ALTER TABLE product_usage_counts ADD COLUMN revision BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE category_usage_counts ADD COLUMN revision BIGINT NOT NULL DEFAULT 1;
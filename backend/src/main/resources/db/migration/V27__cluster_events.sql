@@ -0,0 +1,12 @@
+-- Events sent on one replica, read by the others for their own subscribers (listyyy.events.cluster.mode=database).
+-- Rows are kept for a few minutes only.
+
+CREATE TABLE cluster_events (
+    id          BIGSERIAL PRIMARY KEY,
+    origin      VARCHAR(36) NOT NULL,
+    destination VARCHAR(255) NOT NULL,
+    kind        VARCHAR(16) NOT NULL,
+    payload     TEXT NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX idx_cluster_events_created_at ON cluster_events(created_at);
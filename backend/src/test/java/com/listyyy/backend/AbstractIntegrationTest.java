@@ -144,4 +144,30 @@ public abstract class AbstractIntegrationTest {
     protected String getBearerToken() {
         return "Bearer " + authToken;
     }
+
+    /** Creates a list in the test user's workspace and returns its id. */
+    protected String createList(String name) throws Exception {
+        ResultActions r = mvc.perform(post("/api/lists")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of(
+                                "name", name,
+                                "workspaceId", workspaceId.toString()))))
+                .andExpect(status().isOk());
+        return objectMapper.readTree(r.andReturn().getResponse().getContentAsString()).get("id").asText();
+    }
+
+    /** Adds a custom (product-less) item to the list and returns its id. */
+    protected String addCustomItem(UUID listId, String name) throws Exception {
+        return addCustomItem(listId.toString(), name);
+    }
+
+    protected String addCustomItem(String listId, String name) throws Exception {
+        ResultActions r = mvc.perform(post("/api/lists/" + listId + "/items")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of("customNameHe", name))))
+                .andExpect(status().isOk());
+        return objectMapper.readTree(r.andReturn().getResponse().getContentAsString()).get("id").asText();
+    }
 }
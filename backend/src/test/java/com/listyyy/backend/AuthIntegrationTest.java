@@ -14,6 +14,7 @@ import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -208,6 +209,8 @@ class AuthIntegrationTest extends AbstractIntegrationTest {
                         .content(objectMapper.writeValueAsString(Map.of("phone", "+972501234567"))))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("שליחת SMS נכשלה. נסה שוב מאוחר יותר."));
+        // The code is stored before the send, and removed again when it fails
+        assertThat(phoneOtpRepository.findAll()).isEmpty();
     }
 
     @Test
@@ -306,6 +309,26 @@ class AuthIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.profileImageUrl").value("https://example.com/avatar.png"));
     }
 
+    @Test
+    void rejected_profile_update_does_not_leak_into_later_requests() throws Exception {
+        // Warm the principal cache, then fail validation after the display name was already applied
+        mvc.perform(patch("/api/auth/me")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "displayName", "Changed",
+                                "profileImageUrl", "ftp://example.com/x.png"))))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(patch("/api/auth/me")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "profileImageUrl", "https://example.com/avatar.png"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.displayName").value("Test User"));
+    }
+
     @Test
     void login_response_includes_profile_image_url() throws Exception {
         // Set a profile image first
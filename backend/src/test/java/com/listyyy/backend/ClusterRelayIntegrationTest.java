@@ -0,0 +1,130 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.list.AddListItemRequest;
+import com.listyyy.backend.list.ListItemService;
+import com.listyyy.backend.websocket.EventReplay;
+import com.listyyy.backend.websocket.EventReplayBuffer;
+import com.listyyy.backend.websocket.EventReplayController;
+import com.listyyy.backend.websocket.ListEvent;
+import com.listyyy.backend.websocket.WorkspaceEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two replicas on one database: this test's context and a second application context started next to it,
+ * with the database relay on both. The test database is H2, so this covers the polling path only, not
+ * PostgreSQL's LISTEN/NOTIFY.
+ * <p>
+ * Both use a database of their own, and the context is not cached: its relay would keep reading after the
+ * class is done.
+ */
+@DirtiesContext
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ClusterRelayIntegrationTest.DATABASE_URL,
+        "listyyy.events.cluster.mode=database",
+        "listyyy.events.cluster.poll-interval-ms=50"
+})
+class ClusterRelayIntegrationTest extends AbstractIntegrationTest {
+
+    static final String DATABASE_URL = "jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private EventReplayController replayController;
+
+    private ConfigurableApplicationContext otherReplica;
+
+    @BeforeEach
+    void startOtherReplica() {
+        otherReplica = new SpringApplicationBuilder(ListyyyApplication.class).run(
+                "--server.port=0",
+                "--spring.profiles.active=test",
+                "--spring.datasource.url=" + DATABASE_URL,
+                "--spring.main.banner-mode=off",
+                // The schema belongs to this test's context
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--listyyy.events.cluster.mode=database",
+                "--listyyy.events.cluster.poll-interval-ms=50");
+    }
+
+    @AfterEach
+    void stopOtherReplica() {
+        otherReplica.close();
+    }
+
+    @Test
+    void events_reach_subscribers_of_the_other_replica_once() throws Exception {
+        UUID listId = UUID.fromString(createList("Cluster"));
+        String topic = "/topic/lists/" + listId;
+
+        // Written here, sent by the other replica to its subscribers (seen through what it keeps for replay)
+        addCustomItem(listId, "לחם");
+        long seq = listRepository.findChangeSeq(listId);
+        EventReplayBuffer otherBuffer = otherReplica.getBean(EventReplayBuffer.class);
+        List<Object> relayed = List.of();
+        for (int i = 0; i < 100 && relayed.isEmpty(); i++) {
+            Thread.sleep(50);
+            List<Object> since = otherBuffer.since(topic, seq - 1);
+            relayed = since != null ? since : List.of();
+        }
+        assertThat(relayed).singleElement()
+                .satisfies(e -> assertThat(((ListEvent) e).getItem().getDisplayName()).isEqualTo("לחם"));
+
+        // Written on the other replica, sent here, exactly once
+        AddListItemRequest add = new AddListItemRequest();
+        add.setCustomNameHe("חלב");
+        otherReplica.getBean(ListItemService.class).addItem(listId, UserPrincipal.of(testUser), add);
+        long otherSeq = listRepository.findChangeSeq(listId);
+        verify(messagingTemplate, timeout(5000)).convertAndSend(eq(topic),
+                argThat((Object e) -> e instanceof ListEvent event && event.getSeq() == otherSeq
+                        && "חלב".equals(event.getItem().getDisplayName())));
+        verify(messagingTemplate, after(500).times(2)).convertAndSend(eq(topic), any(Object.class));
+    }
+
+    @Test
+    void a_workspace_sequence_from_another_replica_asks_for_a_resync() throws Exception {
+        mvc.perform(patch("/api/categories/" + categoryId)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("nameHe", "ירקות"))))
+                .andExpect(status().isOk());
+        ArgumentCaptor<WorkspaceEvent> sent = ArgumentCaptor.forClass(WorkspaceEvent.class);
+        verify(messagingTemplate, timeout(5000)).convertAndSend(eq("/topic/workspaces/" + workspaceId), sent.capture());
+        WorkspaceEvent event = sent.getValue();
+
+        EventReplay here = replayController.workspaceReplay(workspaceId, event.getSeq() - 1, event.getReplica());
+        assertThat(here.resyncRequired()).isFalse();
+        assertThat(here.events()).hasSize(1);
+        // The same event was relayed there, under that replica's own counter
+        EventReplay there = otherReplica.getBean(EventReplayController.class)
+                .workspaceReplay(workspaceId, event.getSeq() - 1, event.getReplica());
+        assertThat(there.resyncRequired()).isTrue();
+    }
+}
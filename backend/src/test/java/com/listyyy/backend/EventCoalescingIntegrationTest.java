@@ -0,0 +1,52 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.websocket.ListEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Every list counts as busy here, with a window long enough for a few requests. */
+@TestPropertySource(properties = {
+        "listyyy.events.coalesce.quiet-fanout=0",
+        "listyyy.events.coalesce.min-window-ms=1000",
+        "listyyy.events.coalesce.max-window-ms=1000"
+})
+class EventCoalescingIntegrationTest extends AbstractIntegrationTest {
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    void a_burst_on_one_list_goes_out_as_one_frame_with_each_items_latest_state() throws Exception {
+        String listId = createList("Burst");
+        UUID bread = UUID.fromString(addCustomItem(listId, "לחם"));
+        addCustomItem(listId, "חלב");
+        mvc.perform(patch("/api/lists/" + listId + "/items/" + bread)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("crossedOff", true))))
+                .andExpect(status().isOk());
+
+        String topic = "/topic/lists/" + listId;
+        long seq = listRepository.findChangeSeq(UUID.fromString(listId));
+        verify(messagingTemplate, timeout(5000)).convertAndSend(eq(topic),
+                argThat((ListEvent e) -> e.getType() == ListEvent.Type.BATCH && e.getSeq() == seq
+                        && e.getFromSeq() != null && e.getFromSeq() == seq - 2 && e.getItems().size() == 2
+                        && e.getItems().stream().anyMatch(i -> i.getId().equals(bread) && i.isCrossedOff())));
+        verify(messagingTemplate, after(500).times(1)).convertAndSend(eq(topic), any(Object.class));
+    }
+}
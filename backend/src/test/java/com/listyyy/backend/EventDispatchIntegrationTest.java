@@ -0,0 +1,110 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.productbank.CategoryDto;
+import com.listyyy.backend.websocket.EventReplay;
+import com.listyyy.backend.websocket.EventReplayController;
+import com.listyyy.backend.websocket.ListEvent;
+import com.listyyy.backend.websocket.WorkspaceEvent;
+import com.listyyy.backend.websocket.WorkspaceEventPublisher;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventDispatchIntegrationTest extends AbstractIntegrationTest {
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private WorkspaceEventPublisher workspaceEventPublisher;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EventReplayController replayController;
+
+    @Test
+    void events_are_sent_after_commit_and_never_for_a_rollback() throws Exception {
+        String listId = createList("Events");
+        addCustomItem(listId, "לחם");
+        // The event carries the item as GET /items would return it, plus the list's change sequence
+        long seq = listRepository.findChangeSeq(UUID.fromString(listId));
+        verify(messagingTemplate, timeout(5000)).convertAndSend(eq("/topic/lists/" + listId),
+                argThat((ListEvent e) -> e.getSeq() == seq && e.getItem() != null
+                        && "לחם".equals(e.getItem().getDisplayName()) && e.getItem().getVersion() == 0L
+                        && e.getItem().getCreatedAt() != null));
+
+        UserPrincipal user = UserPrincipal.of(testUser);
+        UUID entityId = UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> {
+            workspaceEventPublisher.publish(workspaceId, WorkspaceEvent.EntityType.CATEGORY,
+                    WorkspaceEvent.Action.CREATED, entityId, "בוטל", user);
+            status.setRollbackOnly();
+        });
+        verify(messagingTemplate, after(500).never()).convertAndSend(eq("/topic/workspaces/" + workspaceId),
+                argThat((WorkspaceEvent e) -> entityId.equals(e.getEntityId())));
+    }
+
+    @Test
+    void workspace_events_carry_the_entity_with_its_bumped_version() throws Exception {
+        mvc.perform(patch("/api/categories/" + categoryId)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("nameHe", "ירקות"))))
+                .andExpect(status().isOk());
+        verify(messagingTemplate, timeout(5000)).convertAndSend(eq("/topic/workspaces/" + workspaceId),
+                argThat((WorkspaceEvent e) -> categoryId.equals(e.getEntityId())
+                        && e.getEntity() instanceof CategoryDto dto && "ירקות".equals(dto.getNameHe())
+                        && dto.getVersion() == 1L && e.getVersion() == 1L));
+    }
+
+    @Test
+    void a_destinations_events_are_sent_in_the_order_they_were_published() {
+        UserPrincipal user = UserPrincipal.of(testUser);
+        for (int i = 0; i < 200; i++) {
+            workspaceEventPublisher.publish(workspaceId, WorkspaceEvent.EntityType.CATEGORY,
+                    WorkspaceEvent.Action.UPDATED, categoryId, "n" + i, user);
+        }
+        ArgumentCaptor<WorkspaceEvent> sent = ArgumentCaptor.forClass(WorkspaceEvent.class);
+        verify(messagingTemplate, timeout(5000).times(200))
+                .convertAndSend(eq("/topic/workspaces/" + workspaceId), sent.capture());
+        assertThat(sent.getAllValues()).extracting(WorkspaceEvent::getEntityName)
+                .containsExactlyElementsOf(IntStream.range(0, 200).mapToObj(i -> "n" + i).toList());
+    }
+
+    @Test
+    void a_reconnecting_client_gets_the_events_it_missed_or_a_resync() throws Exception {
+        UUID listId = UUID.fromString(createList("Replay"));
+        long before = listRepository.findChangeSeq(listId);
+        addCustomItem(listId, "לחם");
+        addCustomItem(listId, "חלב");
+        long seq = listRepository.findChangeSeq(listId);
+        verify(messagingTemplate, timeout(5000)).convertAndSend(eq("/topic/lists/" + listId),
+                argThat((ListEvent e) -> e.getSeq() == seq));
+
+        EventReplay missed = replayController.listReplay(listId, before + 1);
+        assertThat(missed.resyncRequired()).isFalse();
+        assertThat(missed.events()).singleElement()
+                .satisfies(e -> assertThat(((ListEvent) e).getItem().getDisplayName()).isEqualTo("חלב"));
+        assertThat(replayController.listReplay(listId, seq).events()).isEmpty();
+        // Older than anything buffered for the list
+        assertThat(replayController.listReplay(listId, before - 1).resyncRequired()).isTrue();
+    }
+}
@@ -0,0 +1,35 @@
+package com.listyyy.backend;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * H2 stand-ins for PostgreSQL functions used by native queries (registered in test schema.sql).
+ */
+public final class H2Functions {
+
+    private H2Functions() {}
+
+    /** Approximation of pg_trgm similarity(): shared trigrams / union of trigrams. */
+    public static double similarity(String a, String b) {
+        Set<String> ta = trigrams(a);
+        Set<String> tb = trigrams(b);
+        if (ta.isEmpty() || tb.isEmpty()) return 0;
+        Set<String> shared = new HashSet<>(ta);
+        shared.retainAll(tb);
+        return (double) shared.size() / (ta.size() + tb.size() - shared.size());
+    }
+
+    private static Set<String> trigrams(String s) {
+        Set<String> result = new HashSet<>();
+        if (s == null) return result;
+        for (String word : s.toLowerCase().split("\\s+")) {
+            if (word.isEmpty()) continue;
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.auth.JwtProperties;
+import com.listyyy.backend.auth.JwtService;
+import com.listyyy.backend.auth.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token verification cost: the old path (rebuild key + parser, verify twice)
+ * against {@link JwtService#parseAndVerify}.
+ * <p>
+ * Not part of the test suite: run {@link #main} from the IDE, or {@code org.openjdk.jmh.Main JwtAuthBenchmark}
+ * on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-secret-min-256-bits-for-hs256";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtProperties props = new JwtProperties();
+        props.setSecret(SECRET);
+        jwtService = new JwtService(props);
+        User user = User.builder().id(UUID.randomUUID()).email("bench@example.com").build();
+        token = jwtService.generateToken(user);
+    }
+
+    /** What JwtAuthFilter did before: validateToken, then getUserIdFromToken, each with a fresh key and parser. */
+    @Benchmark
+    public UUID rebuildKeyAndVerifyTwice() {
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).build()
+                .parseSignedClaims(token);
+        String sub = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+        return UUID.fromString(sub);
+    }
+
+    @Benchmark
+    public UUID parseAndVerifyOnce() {
+        return UUID.fromString(jwtService.parseAndVerify(token).orElseThrow().getSubject());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtAuthBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -2,17 +2,32 @@ package com.listyyy.backend;
 
 import com.listyyy.backend.auth.User;
 import com.listyyy.backend.auth.UserRepository;
+import com.listyyy.backend.list.GroceryList;
+import com.listyyy.backend.list.ListChangeLog;
+import com.listyyy.backend.list.ListItem;
+import com.listyyy.backend.list.ListItemResponse;
+import com.listyyy.backend.list.ListItemTombstoneRepository;
+import com.listyyy.backend.ordering.Rank;
+import com.listyyy.backend.productbank.Category;
+import com.listyyy.backend.productbank.Product;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -22,6 +37,10 @@ class ListIntegrationTest extends AbstractIntegrationTest {
     private UserRepository userRepository;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ListItemTombstoneRepository tombstoneRepository;
+    @Autowired
+    private ListChangeLog listChangeLog;
 
     @Test
     void create_list_and_get_lists() throws Exception {
@@ -186,6 +205,167 @@ class ListIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$[2].name").value("List B"));
     }
 
+    @Test
+    void move_item_rewrites_only_the_moved_row() throws Exception {
+        String listId = createList("Move list");
+        String a = addCustomItem(listId, "א");
+        String b = addCustomItem(listId, "ב");
+        String c = addCustomItem(listId, "ג");
+
+        mvc.perform(post("/api/lists/" + listId + "/items/" + c + "/move")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("afterId", a, "version", 0))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+        mvc.perform(get("/api/lists/" + listId + "/items").header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$[*].id", contains(a, c, b)))
+                .andExpect(jsonPath("$[0].version").value(0))
+                .andExpect(jsonPath("$[2].version").value(0));
+
+        // Neighbours sharing a rank leave no room: the list is renumbered and the move still lands
+        var itemB = listItemRepository.findById(UUID.fromString(b)).orElseThrow();
+        itemB.setSortRank(listItemRepository.findById(UUID.fromString(a)).orElseThrow().getSortRank());
+        listItemRepository.save(itemB);
+        mvc.perform(post("/api/lists/" + listId + "/items/" + c + "/move")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("afterId", a))))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/lists/" + listId + "/items").header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$[*].id", contains(a, c, b)));
+
+        // No anchor moves to the top
+        mvc.perform(post("/api/lists/" + listId + "/items/" + b + "/move")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/lists/" + listId + "/items").header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$[*].id", contains(b, a, c)));
+
+        mvc.perform(post("/api/lists/" + listId + "/items/" + a + "/move")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("afterId", a))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void delta_sync_returns_only_changes_and_removals_since_the_watermark() throws Exception {
+        String listId = createList("Delta list");
+        String a = addCustomItem(listId, "א");
+        String b = addCustomItem(listId, "ב");
+
+        String first = mvc.perform(get("/api/lists/" + listId + "/items").param("since", "0")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full").value(false))
+                .andExpect(jsonPath("$.items[*].id", contains(a, b)))
+                .andExpect(jsonPath("$.removedIds").isEmpty())
+                .andReturn().getResponse().getContentAsString();
+        long seq = objectMapper.readTree(first).get("seq").asLong();
+
+        mvc.perform(get("/api/lists/" + listId + "/items").param("since", String.valueOf(seq))
+                        .header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.seq").value(seq))
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        mvc.perform(patch("/api/lists/" + listId + "/items/" + a)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("crossedOff", true))))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/api/lists/" + listId + "/items/" + b).header("Authorization", getBearerToken()))
+                .andExpect(status().isNoContent());
+        String rice = objectMapper.readTree(mvc.perform(post("/api/lists/" + listId + "/items")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("productId", productId.toString()))))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        String second = mvc.perform(get("/api/lists/" + listId + "/items").param("since", String.valueOf(seq))
+                        .header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.items[*].id", contains(a, rice)))
+                .andExpect(jsonPath("$.items[0].crossedOff").value(true))
+                .andExpect(jsonPath("$.removedIds", contains(b)))
+                .andReturn().getResponse().getContentAsString();
+        long seq2 = objectMapper.readTree(second).get("seq").asLong();
+
+        // Renaming the product changes how its items render on every list
+        mvc.perform(patch("/api/products/" + productId)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("nameHe", "אורז בסמטי"))))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/lists/" + listId + "/items").param("since", String.valueOf(seq2))
+                        .header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.items[*].id", contains(rice)))
+                .andExpect(jsonPath("$.items[0].displayName").value("אורז בסמטי"))
+                .andExpect(jsonPath("$.removedIds").isEmpty());
+
+        // Once the removal's tombstone is pruned, a client from before it can only reload in full
+        var tombstone = tombstoneRepository.findById(UUID.fromString(b)).orElseThrow();
+        tombstone.setDeletedAt(Instant.now().minus(Duration.ofDays(365)));
+        tombstoneRepository.save(tombstone);
+        listChangeLog.pruneTombstones();
+        mvc.perform(get("/api/lists/" + listId + "/items").param("since", String.valueOf(seq))
+                        .header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.full").value(true))
+                .andExpect(jsonPath("$.items[*].id", contains(a, rice)));
+        mvc.perform(get("/api/lists/" + listId + "/items").param("since", String.valueOf(seq2))
+                        .header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.full").value(false));
+    }
+
+    @Test
+    void item_projection_matches_the_entity_mapping() {
+        var workspace = workspaceRepository.findById(workspaceId).orElseThrow();
+        GroceryList list = listRepository.save(GroceryList.builder().workspace(workspace).name("Projection").build());
+        Category dairy = categoryRepository.save(Category.builder()
+                .workspace(workspace).nameHe("חלב").iconId("dairy").sortOrder(1).build());
+        Product rice = productRepository.findById(productId).orElseThrow();
+        listItemRepository.saveAll(List.of(
+                ListItem.builder().list(list).product(rice).iconId("bowl").quantity(BigDecimal.TEN).unit("קילו")
+                        .note("בסמטי").sortRank(Rank.initial(0)).build(),
+                ListItem.builder().list(list).customNameHe("גבינה").category(dairy).sortRank(Rank.initial(1)).build(),
+                ListItem.builder().list(list).customNameHe("סתם").crossedOff(true).sortRank(Rank.initial(2)).build()));
+
+        List<ListItemResponse> mapped = listItemRepository.findByListIdWithProductAndCategory(list.getId()).stream()
+                .map(ListItemResponse::from).toList();
+        assertThat(mapped).hasSize(3);
+        assertThat(listItemRepository.findResponsesByListId(list.getId())).isEqualTo(mapped);
+    }
+
+    @Test
+    void items_answer_304_until_an_item_of_the_list_changes() throws Exception {
+        String listId = createList("ETag list");
+        String a = addCustomItem(listId, "א");
+
+        String etag = mvc.perform(get("/api/lists/" + listId + "/items").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        mvc.perform(get("/api/lists/" + listId + "/items")
+                        .header("Authorization", getBearerToken())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        mvc.perform(patch("/api/lists/" + listId + "/items/" + a)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("crossedOff", true))))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/lists/" + listId + "/items")
+                        .header("Authorization", getBearerToken())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$[0].crossedOff").value(true));
+    }
+
     @Test
     void lists_require_auth() throws Exception {
         mvc.perform(get("/api/lists")).andExpect(status().is4xxClientError());
@@ -442,14 +622,59 @@ class ListIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
-    private String createList(String name) throws Exception {
-        ResultActions r = mvc.perform(post("/api/lists")
+    @Test
+    void batch_applies_mixed_operations_and_reports_failures_per_operation() throws Exception {
+        String listId = createList("Batch list");
+
+        String body = mvc.perform(post("/api/lists/" + listId + "/items:batch")
                         .header("Authorization", getBearerToken())
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(Map.of(
-                                "name", name,
-                                "workspaceId", workspaceId.toString()))))
-                .andExpect(status().isOk());
-        return objectMapper.readTree(r.andReturn().getResponse().getContentAsString()).get("id").asText();
+                        .content(objectMapper.writeValueAsString(Map.of("operations", List.of(
+                                Map.of("op", "ADD", "add", Map.of("productId", productId.toString())),
+                                Map.of("op", "ADD", "add", Map.of("customNameHe", "נרות")),
+                                Map.of("op", "ADD", "add", Map.of("productId", productId.toString())))))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].item.displayName").value("אורז"))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[2].status").value(400))
+                .andExpect(jsonPath("$[2].message").value("הפריט כבר קיים ברשימה"))
+                .andReturn().getResponse().getContentAsString();
+        var results = objectMapper.readTree(body);
+        String riceId = results.get(0).get("itemId").asText();
+        String candlesId = results.get(1).get("itemId").asText();
+        long riceVersion = results.get(0).get("item").get("version").asLong();
+
+        mvc.perform(post("/api/lists/" + listId + "/items:batch")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("operations", List.of(
+                                Map.of("op", "UPDATE", "itemId", riceId, "update", Map.of("crossedOff", true, "version", riceVersion)),
+                                Map.of("op", "UPDATE", "itemId", riceId, "update", Map.of("note", "x")),
+                                Map.of("op", "REMOVE", "itemId", candlesId, "version", 99),
+                                Map.of("op", "REMOVE", "itemId", UUID.randomUUID().toString()))))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].item.crossedOff").value(true))
+                .andExpect(jsonPath("$[0].item.version").value(riceVersion + 1))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[2].status").value(409))
+                .andExpect(jsonPath("$[3].status").value(404));
+
+        mvc.perform(post("/api/lists/" + listId + "/items:batch")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("operations", List.of(
+                                Map.of("op", "REMOVE", "itemId", candlesId, "version", 0))))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(204));
+
+        mvc.perform(get("/api/lists/" + listId + "/items").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(riceId))
+                .andExpect(jsonPath("$[0].crossedOff").value(true))
+                .andExpect(jsonPath("$[0].note").doesNotExist());
     }
 }
@@ -0,0 +1,59 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.exception.StaleDataException;
+import com.listyyy.backend.list.AddListItemRequest;
+import com.listyyy.backend.list.ListItemAck;
+import com.listyyy.backend.list.ListItemMessageController;
+import com.listyyy.backend.list.UpdateListItemRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchException;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** The STOMP item commands, called as the broker would with the session's principal. */
+class ListItemMessageIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ListItemMessageController controller;
+
+    @Test
+    void item_commands_answer_with_acks_carrying_the_new_version() throws Exception {
+        UUID listId = UUID.fromString(createList("Stomp"));
+        Principal principal = new UsernamePasswordAuthenticationToken(UserPrincipal.of(testUser), null, List.of());
+
+        AddListItemRequest add = new AddListItemRequest();
+        add.setCustomNameHe("לחם");
+        ListItemAck added = controller.add(listId, add, "r1", principal);
+        assertThat(added.getRequestId()).isEqualTo("r1");
+        assertThat(added.getStatus()).isEqualTo(200);
+        assertThat(added.getVersion()).isZero();
+
+        ListItemAck toggled = controller.toggle(listId, added.getItemId(), null, "r2", principal);
+        assertThat(toggled.getItem().isCrossedOff()).isTrue();
+        assertThat(toggled.getVersion()).isEqualTo(1L);
+        mvc.perform(get("/api/lists/" + listId + "/items").header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$[0].crossedOff").value(true));
+
+        // A stale version is answered like the HTTP API would
+        UpdateListItemRequest stale = new UpdateListItemRequest();
+        stale.setVersion(0L);
+        Exception e = catchException(() -> controller.toggle(listId, added.getItemId(), stale, "r3", principal));
+        assertThat(e).isInstanceOf(StaleDataException.class);
+        ListItemAck conflict = controller.failed(e, "r3");
+        assertThat(conflict.getStatus()).isEqualTo(409);
+        assertThat(conflict.getRequestId()).isEqualTo("r3");
+        assertThat(conflict.getMessage()).isNotBlank();
+
+        assertThat(controller.remove(listId, added.getItemId(), "r4", principal).getStatus()).isEqualTo(204);
+    }
+}
@@ -0,0 +1,111 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.list.GroceryList;
+import com.listyyy.backend.list.GroceryListRepository;
+import com.listyyy.backend.list.ListItem;
+import com.listyyy.backend.list.ListItemRepository;
+import com.listyyy.backend.list.ListItemResponse;
+import com.listyyy.backend.ordering.Rank;
+import com.listyyy.backend.productbank.Category;
+import com.listyyy.backend.productbank.CategoryRepository;
+import com.listyyy.backend.productbank.Product;
+import com.listyyy.backend.productbank.ProductRepository;
+import com.listyyy.backend.workspace.Workspace;
+import com.listyyy.backend.workspace.WorkspaceRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a list's items for the API: the entity graph (fetch join, managed entities with dirty-checking
+ * snapshots, then {@link ListItemResponse#from}) against the read-only constructor projection
+ * {@link ListItemRepository#findResponsesByListId}. Boots the application on the test H2 database.
+ * <p>
+ * Not part of the test suite: run {@link #main} from the IDE (it adds the GC profiler, whose
+ * {@code gc.alloc.rate.norm} is the bytes allocated per read), or {@code org.openjdk.jmh.Main ListItemReadBenchmark -prof gc}
+ * on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListItemReadBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int items;
+
+    private ConfigurableApplicationContext context;
+    private ListItemRepository listItemRepository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private UUID listId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ListyyyApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off", "--logging.level.root=WARN");
+        listItemRepository = context.getBean(ListItemRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Workspace workspace = context.getBean(WorkspaceRepository.class).save(Workspace.builder().name("bench").build());
+        Category category = context.getBean(CategoryRepository.class).save(Category.builder()
+                .workspace(workspace).nameHe("מכולת").iconId("groceries").build());
+        GroceryList list = context.getBean(GroceryListRepository.class).save(GroceryList.builder()
+                .workspace(workspace).name("bench").build());
+        listId = list.getId();
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        List<ListItem> rows = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            // Half product items, half custom items filed under the category directly
+            ListItem.ListItemBuilder item = ListItem.builder().list(list).sortRank(Rank.initial(i));
+            if (i % 2 == 0) {
+                item.product(productRepository.save(Product.builder().category(category).nameHe("מוצר " + i).build()));
+            } else {
+                item.customNameHe("פריט " + i).category(category);
+            }
+            rows.add(item.build());
+        }
+        listItemRepository.saveAll(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** What getItems did before: hydrate the graph in a read-write transaction, then copy fields out. */
+    @Benchmark
+    public List<ListItemResponse> entityGraph() {
+        return readWrite.execute(status -> listItemRepository.findByListIdWithProductAndCategory(listId).stream()
+                .map(ListItemResponse::from).toList());
+    }
+
+    @Benchmark
+    public List<ListItemResponse> projection() {
+        return readOnly.execute(status -> listItemRepository.findResponsesByListId(listId));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ListItemReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
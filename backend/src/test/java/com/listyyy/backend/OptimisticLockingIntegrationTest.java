@@ -31,17 +31,6 @@ class OptimisticLockingIntegrationTest extends AbstractIntegrationTest {
 
     // ── Helper methods ─────────────────────────────────────────────────
 
-    private String createList(String name) throws Exception {
-        ResultActions r = mvc.perform(post("/api/lists")
-                        .header("Authorization", getBearerToken())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(Map.of(
-                                "name", name,
-                                "workspaceId", workspaceId.toString()))))
-                .andExpect(status().isOk());
-        return objectMapper.readTree(r.andReturn().getResponse().getContentAsString()).get("id").asText();
-    }
-
     private long getVersionFromResponse(ResultActions result) throws Exception {
         String body = result.andReturn().getResponse().getContentAsString();
         return objectMapper.readTree(body).get("version").asLong();
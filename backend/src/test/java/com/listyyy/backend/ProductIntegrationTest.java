@@ -3,6 +3,7 @@ package com.listyyy.backend;
 import com.listyyy.backend.list.GroceryList;
 import com.listyyy.backend.productbank.Category;
 import com.listyyy.backend.productbank.Product;
+import com.listyyy.backend.workspace.Workspace;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
@@ -262,4 +263,187 @@ class ProductIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
+
+    @Test
+    void product_bank_etag_changes_when_only_an_add_count_does() throws Exception {
+        String etag = mvc.perform(get("/api/products").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mvc.perform(get("/api/products").header("Authorization", getBearerToken()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        GroceryList list = listRepository.save(GroceryList.builder()
+                .workspace(workspaceRepository.findById(workspaceId).orElseThrow())
+                .name("רשימת בדיקה")
+                .build());
+        mvc.perform(post("/api/lists/" + list.getId() + "/items")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("productId", productId.toString()))))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/products").header("Authorization", getBearerToken()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].addCount").value(1));
+    }
+
+    @Test
+    void a_matching_etag_does_not_bypass_category_access() throws Exception {
+        Category empty = categoryRepository.save(Category.builder()
+                .workspace(workspaceRepository.findById(workspaceId).orElseThrow())
+                .nameHe("ריקה")
+                .sortOrder(1)
+                .build());
+        String etag = mvc.perform(get("/api/products").param("categoryId", empty.getId().toString())
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        // Another workspace's category with no products has the same (empty) version
+        Category foreign = categoryRepository.save(Category.builder()
+                .workspace(workspaceRepository.save(Workspace.builder().name("אחר").build()))
+                .nameHe("זרה")
+                .sortOrder(0)
+                .build());
+        mvc.perform(get("/api/products").param("categoryId", foreign.getId().toString())
+                        .header("Authorization", getBearerToken()).header("If-None-Match", etag))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void add_count_tracks_list_item_add_remove_and_category_move() throws Exception {
+        GroceryList list = listRepository.save(GroceryList.builder()
+                .workspace(workspaceRepository.findById(workspaceId).orElseThrow())
+                .name("רשימת בדיקה")
+                .build());
+
+        var add = mvc.perform(post("/api/lists/" + list.getId() + "/items")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("productId", productId.toString()))))
+                .andExpect(status().isOk());
+        String itemId = objectMapper.readTree(add.andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        mvc.perform(get("/api/products/" + productId).header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.addCount").value(1));
+        mvc.perform(get("/api/categories/" + categoryId).header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.addCount").value(1));
+
+        // Moving the product carries its usage to the new category
+        Category cat2 = categoryRepository.save(Category.builder()
+                .workspace(workspaceRepository.findById(workspaceId).orElseThrow())
+                .nameHe("ירקות")
+                .sortOrder(1)
+                .build());
+        mvc.perform(patch("/api/products/" + productId)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("categoryId", cat2.getId().toString()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.addCount").value(1));
+        mvc.perform(get("/api/categories/" + categoryId).header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.addCount").value(0));
+        mvc.perform(get("/api/categories/" + cat2.getId()).header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.addCount").value(1));
+
+        mvc.perform(delete("/api/lists/" + list.getId() + "/items/" + itemId)
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(get("/api/products").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].addCount").value(0));
+        mvc.perform(get("/api/categories/" + cat2.getId()).header("Authorization", getBearerToken()))
+                .andExpect(jsonPath("$.addCount").value(0));
+    }
+
+    @Test
+    void search_folds_niqqud_and_final_letters_and_is_workspace_scoped() throws Exception {
+        Category cat = categoryRepository.findById(categoryId).orElseThrow();
+        productRepository.save(Product.builder().category(cat).nameHe("לחמניה").build());
+        productRepository.save(Product.builder().category(cat).nameHe("לֶחֶם").build());
+
+        // Same name in a workspace the user is not a member of must not leak
+        Workspace other = workspaceRepository.save(Workspace.builder().name("אחר").build());
+        Category otherCat = categoryRepository.save(Category.builder().workspace(other).nameHe("מאפים").build());
+        productRepository.save(Product.builder().category(otherCat).nameHe("לחם").build());
+
+        // "לחם" (final mem) matches "לחמניה" and the pointed "לֶחֶם"; the exact word ranks first
+        mvc.perform(get("/api/products").param("search", "לחם").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].nameHe").value("לֶחֶם"))
+                .andExpect(jsonPath("$[1].nameHe").value("לחמניה"));
+
+        mvc.perform(get("/api/products").param("search", "לחם").param("limit", "1")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        // LIKE wildcards in the term are literal
+        mvc.perform(get("/api/products").param("search", "%").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void suggest_matches_word_prefixes_and_follows_product_writes() throws Exception {
+        // Prime the index before the writes so the incremental path is exercised, not a fresh load
+        mvc.perform(get("/api/products/suggest").param("workspaceId", workspaceId.toString()).param("q", "סוי")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        String body = mvc.perform(post("/api/products")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "categoryId", categoryId.toString(),
+                                "nameHe", "חלב סויה"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String soyId = objectMapper.readTree(body).get("id").asText();
+
+        mvc.perform(get("/api/products/suggest").param("workspaceId", workspaceId.toString()).param("q", "סוי")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(soyId))
+                .andExpect(jsonPath("$[0].categoryId").value(categoryId.toString()));
+
+        // A rename replaces the product's keys
+        mvc.perform(patch("/api/products/" + soyId)
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("nameHe", "משקה שקדים"))))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/products/suggest").param("workspaceId", workspaceId.toString()).param("q", "סוי")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mvc.perform(get("/api/products/suggest").param("workspaceId", workspaceId.toString()).param("q", "שקד")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(soyId));
+
+        mvc.perform(delete("/api/products/" + soyId).header("Authorization", getBearerToken()))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(get("/api/products/suggest").param("workspaceId", workspaceId.toString()).param("q", "שקד")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void suggest_requires_workspace_membership() throws Exception {
+        Workspace other = workspaceRepository.save(Workspace.builder().name("אחר").build());
+        mvc.perform(get("/api/products/suggest").param("workspaceId", other.getId().toString()).param("q", "ח")
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/api/products/suggest").param("workspaceId", workspaceId.toString()).param("q", "ח"))
+                .andExpect(status().isUnauthorized());
+    }
 }
@@ -0,0 +1,97 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserRepository;
+import com.listyyy.backend.list.GroceryList;
+import com.listyyy.backend.list.GroceryListRepository;
+import com.listyyy.backend.notification.FcmService;
+import com.listyyy.backend.notification.FcmToken;
+import com.listyyy.backend.notification.FcmTokenRepository;
+import com.listyyy.backend.workspace.Workspace;
+import com.listyyy.backend.workspace.WorkspaceMember;
+import com.listyyy.backend.workspace.WorkspaceMemberRepository;
+import com.listyyy.backend.workspace.WorkspaceRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One list update pushed to every other member's devices, through the stub sender
+ * ({@code listyyy.push.sender=stub}) with a fixed delay per request standing in for the FCM round trip:
+ * the recipients query plus one multicast per 500 tokens. Boots the application on the test H2 database.
+ * <p>
+ * Not part of the test suite: run {@link #main} from the IDE, or {@code org.openjdk.jmh.Main PushDeliveryBenchmark}
+ * on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PushDeliveryBenchmark {
+
+    /** Members besides the writer, with two devices each. */
+    @Param({"10", "500"})
+    public int members;
+
+    @Param({"20"})
+    public int latencyMs;
+
+    private ConfigurableApplicationContext context;
+    private FcmService fcmService;
+    private UUID listId;
+    private UUID writerId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ListyyyApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                        "--listyyy.push.sender=stub", "--listyyy.push.stub.latency-ms=" + latencyMs);
+        fcmService = context.getBean(FcmService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        WorkspaceMemberRepository memberRepository = context.getBean(WorkspaceMemberRepository.class);
+
+        Workspace workspace = context.getBean(WorkspaceRepository.class).save(Workspace.builder().name("bench").build());
+        listId = context.getBean(GroceryListRepository.class).save(GroceryList.builder()
+                .workspace(workspace).name("bench").build()).getId();
+        List<FcmToken> tokens = new ArrayList<>();
+        for (int i = 0; i <= members; i++) {
+            User user = userRepository.save(User.builder()
+                    .email("bench" + i + "@example.com").passwordHash("x").displayName("bench " + i).locale("he").build());
+            memberRepository.save(WorkspaceMember.builder().workspaceId(workspace.getId()).userId(user.getId()).build());
+            if (i == 0) {
+                writerId = user.getId();
+                continue;
+            }
+            tokens.add(FcmToken.builder().user(user).token("phone-" + i).build());
+            tokens.add(FcmToken.builder().user(user).token("tablet-" + i).build());
+        }
+        context.getBean(FcmTokenRepository.class).saveAll(tokens);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int deliver() {
+        return fcmService.deliverListUpdated(listId, writerId, "Listyyy", "נוסף לחם");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PushDeliveryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
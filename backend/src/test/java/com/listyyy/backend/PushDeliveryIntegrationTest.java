@@ -0,0 +1,161 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserPrincipal;
+import com.listyyy.backend.list.GroceryList;
+import com.listyyy.backend.notification.FcmService;
+import com.listyyy.backend.notification.FcmToken;
+import com.listyyy.backend.notification.FcmTokenRepository;
+import com.listyyy.backend.notification.PushSender;
+import com.listyyy.backend.workspace.WorkspaceMember;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "listyyy.push.batch-size=2",
+        "listyyy.push.digest.quiet-ms=1000"
+})
+class PushDeliveryIntegrationTest extends AbstractIntegrationTest {
+
+    @MockBean
+    private PushSender pushSender;
+    @Autowired
+    private FcmService fcmService;
+    @Autowired
+    private FcmTokenRepository fcmTokenRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User other;
+    private GroceryList list;
+    private final Set<String> sendingThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void otherMemberWithDevices() {
+        other = userRepository.save(User.builder()
+                .email("other@example.com")
+                .passwordHash("x")
+                .displayName("Other")
+                .locale("he")
+                .build());
+        workspaceMemberRepository.save(WorkspaceMember.builder()
+                .workspaceId(workspaceId).userId(other.getId()).role("editor").build());
+        list = listRepository.save(GroceryList.builder()
+                .workspace(workspaceRepository.getReferenceById(workspaceId)).name("Push").build());
+        for (String token : List.of("phone", "tablet", "gone")) {
+            fcmTokenRepository.save(FcmToken.builder().user(other).token(token).build());
+        }
+        fcmTokenRepository.save(FcmToken.builder().user(testUser).token("own").build());
+        when(pushSender.isEnabled()).thenReturn(true);
+        when(pushSender.send(anyList(), any(), any())).thenAnswer(call -> {
+            sendingThreads.add(Thread.currentThread().getName());
+            List<String> tokens = call.getArgument(0);
+            List<String> gone = tokens.stream().filter("gone"::equals).toList();
+            return new PushSender.PushResult(tokens.size() - gone.size(), gone.size(), gone);
+        });
+    }
+
+    @AfterEach
+    void deleteTokens() {
+        fcmTokenRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void other_members_devices_get_the_push_in_batches_and_unregistered_tokens_are_deleted() {
+        int delivered = fcmService.deliverListUpdated(list.getId(), testUser.getId(), "Listyyy", "נוסף לחם");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> batches = ArgumentCaptor.forClass(List.class);
+        verify(pushSender, times(2)).send(batches.capture(), eq("Listyyy"), eq("נוסף לחם"));
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(batches.getAllValues().stream().flatMap(List::stream))
+                .containsExactlyInAnyOrder("phone", "tablet", "gone");
+        assertThat(delivered).isEqualTo(2);
+        assertThat(fcmTokenRepository.findAll()).extracting(FcmToken::getToken)
+                .containsExactlyInAnyOrder("phone", "tablet", "own");
+    }
+
+    @Test
+    void a_burst_of_changes_reaches_each_other_member_as_one_digest() throws Exception {
+        for (String name : List.of("לחם", "חלב", "ביצים")) {
+            addItem(name);
+        }
+
+        verify(pushSender, timeout(5000)).send(argThat((List<String> tokens) -> tokens.contains("phone")),
+                eq("Listyyy"), eq("Test User הוסיף 3 פריטים"));
+        // Nothing for the author's own device, and no push per item
+        verify(pushSender, after(1000).times(2)).send(anyList(), any(), any());
+        // Off the request and scheduler threads, on the bounded push pool
+        assertThat(sendingThreads).allMatch(name -> name.startsWith("push-"));
+        assertThat(meterRegistry.get("listyyy.executor.latency").tag("name", "push").timer().count()).isPositive();
+    }
+
+    @Test
+    void members_with_the_list_open_get_no_push_until_they_leave() throws Exception {
+        Principal principal = new UsernamePasswordAuthenticationToken(UserPrincipal.of(other), null, List.of());
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSessionId("s1");
+        subscribe.setSubscriptionId("sub-1");
+        subscribe.setDestination("/topic/lists/" + list.getId());
+        eventPublisher.publishEvent(new SessionSubscribeEvent(this,
+                MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), principal));
+
+        addItem("לחם");
+        verify(pushSender, after(2000).never()).send(anyList(), any(), any());
+
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("s1");
+        eventPublisher.publishEvent(new SessionDisconnectEvent(this,
+                MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), "s1", CloseStatus.NORMAL, principal));
+        addItem("חלב");
+        verify(pushSender, timeout(5000)).send(argThat((List<String> tokens) -> tokens.contains("phone")),
+                eq("Listyyy"), startsWith("Test User הוסיף: חלב"));
+    }
+
+    private void addItem(String name) throws Exception {
+        mvc.perform(post("/api/lists/" + list.getId() + "/items")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("customNameHe", name))))
+                .andExpect(status().isOk());
+    }
+}
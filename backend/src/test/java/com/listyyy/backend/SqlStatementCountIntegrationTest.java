@@ -0,0 +1,110 @@
+package com.listyyy.backend;
+
+import com.listyyy.backend.list.GroceryList;
+import com.listyyy.backend.list.ListItem;
+import com.listyyy.backend.productbank.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of SQL statements per endpoint: the target entity and the caller's
+ * workspace role are fetched together, and later access checks in the request hit the caches.
+ */
+class SqlStatementCountIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private GroceryList list;
+    private ListItem item;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        list = listRepository.save(GroceryList.builder()
+                .name("רשימה")
+                .workspace(workspaceRepository.findById(workspaceId).orElseThrow())
+                .build());
+        Product product = productRepository.findById(productId).orElseThrow();
+        item = listItemRepository.save(ListItem.builder()
+                .list(list)
+                .product(product)
+                .quantity(BigDecimal.ONE)
+                .unit("קילו")
+                .build());
+        // Warm the principal cache so counts cover only the endpoint itself
+        mvc.perform(get("/api/workspaces").header("Authorization", getBearerToken()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void get_list_fetches_list_and_role_in_one_statement() throws Exception {
+        assertThat(count(get("/api/lists/" + list.getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void get_items_adds_only_the_items_query() throws Exception {
+        assertThat(count(get("/api/lists/" + list.getId() + "/items"))).isEqualTo(2);
+    }
+
+    @Test
+    void unchanged_items_answer_304_from_the_access_check_alone() throws Exception {
+        String etag = mvc.perform(get("/api/lists/" + list.getId() + "/items")
+                        .header("Authorization", getBearerToken()))
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+        mvc.perform(get("/api/lists/" + list.getId() + "/items")
+                        .header("Authorization", getBearerToken())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void update_item_checks_access_once() throws Exception {
+        // list+role, item, change-sequence bump and read, product, update, category for the response
+        assertThat(count(patch("/api/lists/" + list.getId() + "/items/" + item.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("crossedOff", true)))))
+                .isEqualTo(7);
+    }
+
+    @Test
+    void delta_sync_with_nothing_new_reads_only_the_list() throws Exception {
+        long seq = listRepository.findChangeSeq(list.getId());
+        assertThat(count(get("/api/lists/" + list.getId() + "/items").param("since", String.valueOf(seq))))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void get_category_fetches_category_and_role_in_one_statement() throws Exception {
+        // category+role, add count
+        assertThat(count(get("/api/categories/" + categoryId))).isEqualTo(2);
+    }
+
+    @Test
+    void get_product_checks_category_access_once() throws Exception {
+        // product, category+role, add count
+        assertThat(count(get("/api/products/" + productId))).isEqualTo(3);
+    }
+
+    private long count(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mvc.perform(request.header("Authorization", getBearerToken())).andExpect(status().is2xxSuccessful());
+        return statistics.getPrepareStatementCount();
+    }
+}
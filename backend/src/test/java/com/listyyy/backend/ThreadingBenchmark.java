@@ -0,0 +1,146 @@
+package com.listyyy.backend;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.listyyy.backend.auth.JwtService;
+import com.listyyy.backend.auth.SmsService;
+import com.listyyy.backend.auth.User;
+import com.listyyy.backend.auth.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+
+/**
+ * Bursts of concurrent requests that spend their time waiting on a remote service, on platform threads
+ * (Tomcat's default pool of 200) against virtual threads ({@code spring.threads.virtual.enabled}): phone OTP
+ * requests, with the Twilio call replaced by a {@link #remoteMs} wait, and image searches against a local GIPHY
+ * stub that answers after {@link #remoteMs}. Boots the application on the test H2 database, on a random port.
+ * <p>
+ * Needs Java 21 to show a difference; on 17 the virtual setting is ignored and both runs use platform threads.
+ * Not part of the test suite: run {@link #main} from the IDE, or {@code org.openjdk.jmh.Main ThreadingBenchmark}
+ * on the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    /** Requests in flight at once. */
+    @Param({"1000"})
+    public int concurrency;
+
+    @Param({"100"})
+    public int remoteMs;
+
+    private WireMockServer giphy;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String bearer;
+    private final AtomicLong phones = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        giphy = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort()
+                .containerThreads(200)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(50));
+        giphy.start();
+        giphy.stubFor(get(urlPathEqualTo("/v1/stickers/search")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"data\": []}")
+                .withFixedDelay(remoteMs)));
+
+        context = new SpringApplicationBuilder(ListyyyApplication.class)
+                // Registered here rather than as a configuration class, which the tests' component scan would find
+                .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean("slowSms", SmsService.class,
+                        () -> new SmsService() {
+                            @Override
+                            public void sendOtp(String toPhone, String code) {
+                                try {
+                                    Thread.sleep(remoteMs);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            }
+                        }, definition -> definition.setPrimary(true)))
+                .run("--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--listyyy.otp.rate-limit-per-phone-per-hour=1000000",
+                        "--listyyy.giphy.api-key=bench",
+                        "--listyyy.giphy.api-url=" + giphy.baseUrl());
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .email("bench@example.com").passwordHash("x").displayName("bench").locale("he").build());
+        bearer = "Bearer " + context.getBean(JwtService.class).generateToken(user);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        giphy.stop();
+    }
+
+    @Benchmark
+    public int phoneOtp() {
+        return burst(i -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/phone/request"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"phone\": \"+97250" + String.format("%07d", phones.incrementAndGet() % 10_000_000) + "\"}"))
+                .build());
+    }
+
+    @Benchmark
+    public int imageSearch() {
+        return burst(i -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/images/search?q=milk"))
+                .header("Authorization", bearer)
+                .GET()
+                .build());
+    }
+
+    /** Sends {@link #concurrency} requests at once and waits for all; returns how many were not 200. */
+    private int burst(IntFunction<HttpRequest> request) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(client.sendAsync(request.apply(i), HttpResponse.BodyHandlers.discarding()));
+        }
+        int failed = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() != 200) failed++;
+        }
+        return failed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ThreadingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -145,6 +145,35 @@ class WorkspaceIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void cached_membership_follows_invite_and_removal() throws Exception {
+        User other = userRepository.save(User.builder()
+                .email("other@example.com")
+                .passwordHash(passwordEncoder.encode("pass123"))
+                .displayName("Other User")
+                .locale("he")
+                .build());
+        String otherToken = login("other@example.com", "pass123");
+
+        // Denied before the invite (caches the non-membership)
+        mvc.perform(get("/api/workspaces/" + workspaceId).header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isForbidden());
+
+        mvc.perform(post("/api/workspaces/" + workspaceId + "/members")
+                        .header("Authorization", getBearerToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", "other@example.com"))))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/workspaces/" + workspaceId).header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isOk());
+
+        mvc.perform(delete("/api/workspaces/" + workspaceId + "/members/" + other.getId())
+                        .header("Authorization", getBearerToken()))
+                .andExpect(status().isNoContent());
+        mvc.perform(get("/api/workspaces/" + workspaceId).header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void member_can_leave_workspace() throws Exception {
         User other = userRepository.save(User.builder()
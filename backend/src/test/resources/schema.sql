@@ -0,0 +1 @@
+CREATE ALIAS IF NOT EXISTS similarity FOR 'com.listyyy.backend.H2Functions.similarity';
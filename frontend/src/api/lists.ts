@@ -1,5 +1,5 @@
 import { api } from './client';
-import type { ListResponse, ListItemResponse } from '../types';
+import type { ListResponse, ListItemResponse, ListItemsDelta } from '../types';
 
 export async function getLists(workspaceId?: string): Promise<ListResponse[]> {
   const params = new URLSearchParams();
@@ -45,10 +45,23 @@ export async function reorderLists(listIds: string[]): Promise<void> {
   });
 }
 
+/** Move one list directly after another (null: to the top); only that list is rewritten. */
+export async function moveList(listId: string, afterId: string | null, version?: number): Promise<ListResponse> {
+  return api<ListResponse>(`/api/lists/${listId}/move`, {
+    method: 'POST',
+    body: JSON.stringify({ afterId, version }),
+  });
+}
+
 export async function getListItems(listId: string): Promise<ListItemResponse[]> {
   return api<ListItemResponse[]>(`/api/lists/${listId}/items`);
 }
 
+/** Items changed and ids removed after change sequence `since` (0 for a first sync). */
+export async function getListItemsSince(listId: string, since: number): Promise<ListItemsDelta> {
+  return api<ListItemsDelta>(`/api/lists/${listId}/items?since=${since}`);
+}
+
 export async function addListItem(
   listId: string,
   body: {
@@ -99,3 +112,11 @@ export async function reorderListItems(listId: string, itemIds: string[]): Promi
     body: JSON.stringify({ itemIds }),
   });
 }
+
+/** Move one item directly after another (null: to the top); only that item is rewritten. */
+export async function moveListItem(listId: string, itemId: string, afterId: string | null, version?: number): Promise<ListItemResponse> {
+  return api<ListItemResponse>(`/api/lists/${listId}/items/${itemId}/move`, {
+    method: 'POST',
+    body: JSON.stringify({ afterId, version }),
+  });
+}
@@ -40,6 +40,14 @@ export async function reorderCategories(categoryIds: string[]): Promise<void> {
   });
 }
 
+/** Move one category directly after another (null: to the top); only that category is rewritten. */
+export async function moveCategory(id: string, afterId: string | null, version?: number): Promise<CategoryDto> {
+  return api<CategoryDto>(`/api/categories/${id}/move`, {
+    method: 'POST',
+    body: JSON.stringify({ afterId, version }),
+  });
+}
+
 export async function getProducts(categoryId?: string, search?: string): Promise<ProductDto[]> {
   const params = new URLSearchParams();
   if (categoryId) params.set('categoryId', categoryId);
@@ -0,0 +1,104 @@
+import { describe, it, expect } from 'vitest'
+import { applyListEvent } from './useListEvents'
+import type { ListEvent, ListItemResponse } from '../types'
+
+function item(id: string, sortRank: string, version = 0, overrides: Partial<ListItemResponse> = {}): ListItemResponse {
+  return {
+    id,
+    listId: 'list1',
+    productId: null,
+    customNameHe: id,
+    displayName: id,
+    categoryId: null,
+    categoryNameHe: null,
+    categoryIconId: null,
+    quantity: 1,
+    unit: 'יחידה',
+    note: null,
+    crossedOff: false,
+    itemImageUrl: null,
+    productImageUrl: null,
+    sortOrder: 0,
+    sortRank,
+    createdAt: '2025-01-01T00:00:00Z',
+    updatedAt: '2025-01-01T00:00:00Z',
+    version,
+    ...overrides,
+  }
+}
+
+function event(overrides: Partial<ListEvent>): ListEvent {
+  return {
+    type: 'UPDATED',
+    listId: 'list1',
+    itemId: null,
+    itemDisplayName: '',
+    quantityUnit: '',
+    userId: 'u1',
+    userDisplayName: 'דנה',
+    seq: 1,
+    ...overrides,
+  }
+}
+
+describe('applyListEvent', () => {
+  it('adds an item in rank order', () => {
+    const items = [item('a', 'a'), item('c', 'c')]
+    const result = applyListEvent(items, event({ type: 'ADDED', itemId: 'b', item: item('b', 'b') }))
+    expect(result.map(i => i.id)).toEqual(['a', 'b', 'c'])
+  })
+
+  it('removes an item', () => {
+    const items = [item('a', 'a'), item('b', 'b')]
+    const result = applyListEvent(items, event({ type: 'REMOVED', itemId: 'a' }))
+    expect(result.map(i => i.id)).toEqual(['b'])
+  })
+
+  it('keeps a newer cached version over an older one in the event', () => {
+    const items = [item('a', 'a', 3, { quantity: 5 })]
+    const result = applyListEvent(items, event({ itemId: 'a', item: item('a', 'a', 2, { quantity: 1 }) }))
+    expect(result[0].quantity).toBe(5)
+  })
+
+  it('replaces an item with the same or a newer version', () => {
+    const items = [item('a', 'a', 2, { quantity: 1 })]
+    const result = applyListEvent(items, event({ itemId: 'a', item: item('a', 'a', 3, { quantity: 4 }) }))
+    expect(result[0].quantity).toBe(4)
+  })
+
+  it('moves an item whose rank changed', () => {
+    const items = [item('a', 'a'), item('b', 'b'), item('c', 'c')]
+    const result = applyListEvent(items, event({ itemId: 'a', item: item('a', 'd', 1) }))
+    expect(result.map(i => i.id)).toEqual(['b', 'c', 'a'])
+  })
+
+  it('orders ranks by code unit, not locale', () => {
+    const items = [item('lower', 'a'), item('upper', 'Z')]
+    expect(applyListEvent(items, event({ type: 'BATCH' })).map(i => i.id)).toEqual(['upper', 'lower'])
+  })
+
+  it('breaks rank ties by creation time', () => {
+    const items = [
+      item('later', 'a', 0, { createdAt: '2025-01-02T00:00:00Z' }),
+      item('earlier', 'a', 0, { createdAt: '2025-01-01T00:00:00Z' }),
+    ]
+    expect(applyListEvent(items, event({ type: 'BATCH' })).map(i => i.id)).toEqual(['earlier', 'later'])
+  })
+
+  it('applies a batch: removals, then upserts', () => {
+    const items = [item('a', 'a'), item('b', 'b', 1), item('c', 'c')]
+    const result = applyListEvent(items, event({
+      type: 'BATCH',
+      items: [item('b', 'b', 2, { crossedOff: true }), item('d', 'd')],
+      removedItemIds: ['a', 'c'],
+    }))
+    expect(result.map(i => i.id)).toEqual(['b', 'd'])
+    expect(result[0].crossedOff).toBe(true)
+  })
+
+  it('does not change the input array', () => {
+    const items = [item('a', 'a')]
+    applyListEvent(items, event({ type: 'REMOVED', itemId: 'a' }))
+    expect(items.map(i => i.id)).toEqual(['a'])
+  })
+})
@@ -1,20 +1,61 @@
-import { useEffect, useRef } from 'react';
+import { useCallback, useEffect, useRef } from 'react';
 import SockJS from 'sockjs-client';
 import { Client } from '@stomp/stompjs';
 import { getWsUrl } from '../api/client';
 import { useAuthStore } from '../store/authStore';
-import type { ListEvent } from '../types';
+import type { EventReplay, ListEvent, ListItemAck, ListItemResponse } from '../types';
 
+/** Apply a list event to cached items: removals, then upserts (an older version never wins), in rank order. */
+export function applyListEvent(items: ListItemResponse[], event: ListEvent): ListItemResponse[] {
+  const upserts = event.type === 'BATCH' ? event.items ?? [] : event.item ? [event.item] : [];
+  const removedIds = event.type === 'BATCH' ? event.removedItemIds ?? []
+    : event.type === 'REMOVED' && event.itemId ? [event.itemId] : [];
+  const removed = new Set(removedIds);
+  const byId = new Map(items.filter((i) => !removed.has(i.id)).map((i) => [i.id, i]));
+  for (const item of upserts) {
+    const current = byId.get(item.id);
+    if (!current || current.version <= item.version) byId.set(item.id, item);
+  }
+  return [...byId.values()].sort((a, b) =>
+    compare(a.sortRank ?? '', b.sortRank ?? '') || compare(a.createdAt, b.createdAt));
+}
+
+/** Plain code-unit order, matching the server's "C" collation for ranks. */
+function compare(a: string, b: string): number {
+  return a < b ? -1 : a > b ? 1 : 0;
+}
+
+type PendingCommand = { resolve: (ack: ListItemAck) => void; reject: (error: Error) => void };
+
+/**
+ * Subscribe to a list's events. After a reconnect, the events missed meanwhile are replayed (with
+ * `replayed` set) or, when the server no longer has them all, `onResync` is called to refetch.
+ *
+ * Also returns `sendItemCommand` to edit items over the same connection (e.g. `${itemId}/toggle`):
+ * it resolves with the server's ack, or returns null while disconnected so the caller can use HTTP instead.
+ */
 export function useListEvents(
   listId: string | null,
-  onEvent: (event: ListEvent) => void
+  onEvent: (event: ListEvent, replayed: boolean) => void,
+  onResync?: () => void
 ) {
   const token = useAuthStore((s) => s.token);
   const clientRef = useRef<Client | null>(null);
+  const lastSeqRef = useRef<number | null>(null);
+  const pendingRef = useRef(new Map<string, PendingCommand>());
+
+  useEffect(() => {
+    lastSeqRef.current = null;
+  }, [listId]);
 
   useEffect(() => {
     if (!listId || !token) return;
 
+    const deliver = (event: ListEvent, replayed: boolean) => {
+      lastSeqRef.current = Math.max(lastSeqRef.current ?? event.seq, event.seq);
+      onEvent(event, replayed);
+    };
+
     const wsUrl = getWsUrl();
     const sock = new SockJS(wsUrl);
     const client = new Client({
@@ -25,11 +66,45 @@ export function useListEvents(
         client.subscribe(`/topic/lists/${listId}`, (msg) => {
           try {
             const event = JSON.parse(msg.body) as ListEvent;
-            onEvent(event);
+            deliver(event, false);
+          } catch {
+            // ignore
+          }
+        });
+        client.subscribe('/user/queue/list-item-acks', (msg) => {
+          try {
+            const ack = JSON.parse(msg.body) as ListItemAck;
+            const pending = pendingRef.current.get(ack.requestId);
+            if (!pending) return;
+            pendingRef.current.delete(ack.requestId);
+            if (ack.status < 300) pending.resolve(ack);
+            else pending.reject(new Error(ack.message ?? 'שגיאה'));
           } catch {
             // ignore
           }
         });
+        const lastSeq = lastSeqRef.current;
+        if (lastSeq === null) return;
+        // Reconnected: ask for what was sent while the connection was down (one reply)
+        const replay = client.subscribe(`/app/lists/${listId}/replay`, (msg) => {
+          replay.unsubscribe();
+          try {
+            const reply = JSON.parse(msg.body) as EventReplay<ListEvent>;
+            if (reply.resyncRequired) {
+              onResync?.();
+              return;
+            }
+            reply.events.forEach((event) => deliver(event, true));
+            if (reply.seq !== null && reply.seq > (lastSeqRef.current ?? 0)) onResync?.();
+          } catch {
+            // ignore
+          }
+        }, { 'last-seq': String(lastSeq) });
+      },
+      // Commands in flight may or may not have been applied; the caller refetches on failure
+      onWebSocketClose: () => {
+        pendingRef.current.forEach((pending) => pending.reject(new Error('החיבור נותק')));
+        pendingRef.current.clear();
       },
     });
     client.activate();
@@ -39,5 +114,21 @@ export function useListEvents(
       client.deactivate();
       clientRef.current = null;
     };
-  }, [listId, token, onEvent]);
+  }, [listId, token, onEvent, onResync]);
+
+  const sendItemCommand = useCallback((path: string, body?: unknown): Promise<ListItemAck> | null => {
+    const client = clientRef.current;
+    if (!listId || !client?.connected) return null;
+    const requestId = `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+    return new Promise<ListItemAck>((resolve, reject) => {
+      pendingRef.current.set(requestId, { resolve, reject });
+      client.publish({
+        destination: `/app/lists/${listId}/items/${path}`,
+        body: JSON.stringify(body ?? {}),
+        headers: { 'request-id': requestId, 'content-type': 'application/json' },
+      });
+    });
+  }, [listId]);
+
+  return { sendItemCommand };
 }
@@ -0,0 +1,72 @@
+import { describe, it, expect } from 'vitest'
+import { canPatch, patchEntities } from './useWorkspaceEvents'
+import type { CategoryDto, WorkspaceEvent } from '../types'
+
+type Row = { id: string; version: number; name: string }
+
+function row(id: string, version = 0, name = id): Row {
+  return { id, version, name }
+}
+
+function event(overrides: Partial<WorkspaceEvent>): WorkspaceEvent {
+  return {
+    entityType: 'CATEGORY',
+    action: 'UPDATED',
+    workspaceId: 'ws1',
+    entityId: 'a',
+    entityName: 'a',
+    userId: 'u1',
+    userDisplayName: 'דנה',
+    ...overrides,
+  }
+}
+
+function withEntity(entity: Row, overrides: Partial<WorkspaceEvent> = {}): WorkspaceEvent {
+  return event({ entityId: entity.id, entity: entity as unknown as CategoryDto, ...overrides })
+}
+
+describe('canPatch', () => {
+  it('patches a deletion or an event carrying the entity', () => {
+    expect(canPatch(event({ action: 'DELETED' }))).toBe(true)
+    expect(canPatch(withEntity(row('a')))).toBe(true)
+  })
+
+  it('does not patch an update without the entity', () => {
+    expect(canPatch(event({ entity: null }))).toBe(false)
+  })
+})
+
+describe('patchEntities', () => {
+  it('leaves rows that were never fetched alone', () => {
+    expect(patchEntities<Row>(undefined, withEntity(row('a')))).toBeUndefined()
+  })
+
+  it('removes a deleted row', () => {
+    const rows = [row('a'), row('b')]
+    expect(patchEntities(rows, event({ action: 'DELETED', entityId: 'a' }))?.map(r => r.id)).toEqual(['b'])
+  })
+
+  it('appends a created row last', () => {
+    const rows = [row('a'), row('b')]
+    const result = patchEntities(rows, withEntity(row('c'), { action: 'CREATED' }))
+    expect(result?.map(r => r.id)).toEqual(['a', 'b', 'c'])
+  })
+
+  it('replaces a row in place with a newer version', () => {
+    const rows = [row('a'), row('b', 1, 'old'), row('c')]
+    const result = patchEntities(rows, withEntity(row('b', 2, 'new')))
+    expect(result?.map(r => r.name)).toEqual(['a', 'new', 'c'])
+  })
+
+  it('keeps a newer cached version over an older one in the event', () => {
+    const rows = [row('a', 3, 'newer')]
+    const result = patchEntities(rows, withEntity(row('a', 2, 'older')))
+    expect(result).toBe(rows)
+  })
+
+  it('does not change the input array', () => {
+    const rows = [row('a'), row('b')]
+    patchEntities(rows, event({ action: 'DELETED', entityId: 'a' }))
+    expect(rows.map(r => r.id)).toEqual(['a', 'b'])
+  })
+})
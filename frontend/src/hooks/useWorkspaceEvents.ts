@@ -3,22 +3,63 @@ import SockJS from 'sockjs-client';
 import { Client } from '@stomp/stompjs';
 import { getWsUrl } from '../api/client';
 import { useAuthStore } from '../store/authStore';
-import type { WorkspaceEvent } from '../types';
+import type { EventReplay, WorkspaceEvent } from '../types';
+
+/** Whether the event alone is enough to update cached rows, without refetching. */
+export function canPatch(event: WorkspaceEvent): boolean {
+  return event.action === 'DELETED' || event.entity != null;
+}
+
+/**
+ * Apply a workspace event to cached rows of its entity type: DELETED removes the row, otherwise the
+ * event's entity replaces it (an older version never wins) or is appended, as new entities rank last.
+ */
+export function patchEntities<T extends { id: string; version: number }>(
+  rows: T[] | undefined,
+  event: WorkspaceEvent
+): T[] | undefined {
+  if (!rows) return rows;
+  if (event.action === 'DELETED') return rows.filter((r) => r.id !== event.entityId);
+  const entity = event.entity as unknown as T;
+  const index = rows.findIndex((r) => r.id === entity.id);
+  if (index < 0) return [...rows, entity];
+  if (rows[index].version > entity.version) return rows;
+  return rows.map((r, i) => (i === index ? entity : r));
+}
 
 /**
  * Subscribe to workspace-level WebSocket events (category/product/list/workspace changes).
- * On each event the callback is invoked so the consumer can invalidate queries / show toasts.
+ * On each event the callback is invoked so the consumer can patch or invalidate queries / show toasts.
+ * After a reconnect the missed events are replayed, or `onResync` is called when the server no longer has them.
  */
 export function useWorkspaceEvents(
   workspaceId: string | null,
-  onEvent: (event: WorkspaceEvent) => void
+  onEvent: (event: WorkspaceEvent) => void,
+  onResync?: () => void
 ) {
   const token = useAuthStore((s) => s.token);
   const clientRef = useRef<Client | null>(null);
+  // Sequences are per server replica: kept with the replica that set them
+  const lastSeqRef = useRef<{ seq: number; replica: string | null } | null>(null);
+
+  useEffect(() => {
+    lastSeqRef.current = null;
+  }, [workspaceId]);
 
   useEffect(() => {
     if (!workspaceId || !token) return;
 
+    const deliver = (event: WorkspaceEvent) => {
+      if (event.seq != null) {
+        const last = lastSeqRef.current;
+        const replica = event.replica ?? null;
+        lastSeqRef.current = last && last.replica === replica
+          ? { seq: Math.max(last.seq, event.seq), replica }
+          : { seq: event.seq, replica };
+      }
+      onEvent(event);
+    };
+
     const wsUrl = getWsUrl();
     const sock = new SockJS(wsUrl);
     const client = new Client({
@@ -29,11 +70,28 @@ export function useWorkspaceEvents(
         client.subscribe(`/topic/workspaces/${workspaceId}`, (msg) => {
           try {
             const event = JSON.parse(msg.body) as WorkspaceEvent;
-            onEvent(event);
+            deliver(event);
           } catch {
             // ignore
           }
         });
+        const last = lastSeqRef.current;
+        if (last === null) return;
+        // Reconnected: ask for what was sent while the connection was down (one reply)
+        const replay = client.subscribe(`/app/workspaces/${workspaceId}/replay`, (msg) => {
+          replay.unsubscribe();
+          try {
+            const reply = JSON.parse(msg.body) as EventReplay<WorkspaceEvent>;
+            if (reply.resyncRequired) {
+              lastSeqRef.current = null;
+              onResync?.();
+            } else {
+              reply.events.forEach(deliver);
+            }
+          } catch {
+            // ignore
+          }
+        }, { 'last-seq': String(last.seq), 'last-replica': last.replica ?? '' });
       },
     });
     client.activate();
@@ -43,5 +101,5 @@ export function useWorkspaceEvents(
       client.deactivate();
       clientRef.current = null;
     };
-  }, [workspaceId, token, onEvent]);
+  }, [workspaceId, token, onEvent, onResync]);
 }
@@ -2,7 +2,7 @@ import { useState, useRef, useCallback, useEffect } from 'react';
 import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
 import { getCategories, getProducts, createCategory, createProduct, updateCategory, updateProduct, deleteCategory, deleteProduct, reorderCategories } from '../api/products';
 import { useWorkspaceStore } from '../store/workspaceStore';
-import { useWorkspaceEvents } from '../hooks/useWorkspaceEvents';
+import { canPatch, patchEntities, useWorkspaceEvents } from '../hooks/useWorkspaceEvents';
 import { uploadFile } from '../api/client';
 import { CategoryIcon } from '../components/CategoryIcon';
 import { DisplayImageForm } from '../components/DisplayImageForm';
@@ -90,11 +90,25 @@ export function Categories() {
 
   useWorkspaceEvents(activeWorkspaceId, useCallback((event: WorkspaceEvent) => {
     if (event.entityType === 'CATEGORY') {
-      queryClient.invalidateQueries({ queryKey: ['categories'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<CategoryDto[]>(['categories', activeWorkspaceId], (rows) => patchEntities(rows, event));
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['categories'] });
+      }
+      // Deleting a category deletes its products too
+      if (event.action === 'DELETED') queryClient.invalidateQueries({ queryKey: ['products'] });
     }
     if (event.entityType === 'PRODUCT') {
-      queryClient.invalidateQueries({ queryKey: ['products'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<ProductDto[]>(['products'], (rows) => patchEntities(rows, event));
+        queryClient.invalidateQueries({ queryKey: ['products'], predicate: (q) => q.queryKey.length > 1 });
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['products'] });
+      }
     }
+  }, [activeWorkspaceId, queryClient]), useCallback(() => {
+    queryClient.invalidateQueries({ queryKey: ['categories'] });
+    queryClient.invalidateQueries({ queryKey: ['products'] });
   }, [queryClient]));
 
   const [createError, setCreateError] = useState<string | null>(null);
@@ -29,14 +29,14 @@ import {
 } from '../api/lists';
 import { getCategories, getProducts, updateProduct } from '../api/products';
 import { uploadFile } from '../api/client';
-import { useListEvents } from '../hooks/useListEvents';
-import { useWorkspaceEvents } from '../hooks/useWorkspaceEvents';
+import { applyListEvent, useListEvents } from '../hooks/useListEvents';
+import { canPatch, patchEntities, useWorkspaceEvents } from '../hooks/useWorkspaceEvents';
 import { AppBar } from '../components/AppBar';
 import { CategoryIcon } from '../components/CategoryIcon';
 import { DisplayImageForm, type DisplayImageType } from '../components/DisplayImageForm';
 import { ViewModeToggle, useViewMode } from '../components/ViewModeToggle';
 import { ProductAutocomplete } from '../components/ProductAutocomplete';
-import type { ListItemResponse, ListEvent, WorkspaceEvent, ProductDto } from '../types';
+import type { CategoryDto, ListItemResponse, ListEvent, ListResponse, WorkspaceEvent, ProductDto } from '../types';
 
 function TrashIcon({ size = 18, color = '#999' }: { size?: number; color?: string }) {
   return (
@@ -185,28 +185,77 @@ export function ListDetail() {
     setTimeout(() => setNotification(null), isError ? 5000 : 4000);
   }
 
-  useListEvents(listId ?? null, useCallback((event: ListEvent) => {
-    queryClient.invalidateQueries({ queryKey: ['listItems', listId] });
+  // Events apply in place while they arrive in sequence; a gap (or no cached items) falls back to a refetch.
+  // The items were fetched without a sequence, so the first event refetches them rather than guess what they cover.
+  const lastSeqRef = useRef<number | null>(null);
+  useEffect(() => {
+    lastSeqRef.current = null;
+  }, [listId]);
+
+  const { sendItemCommand } = useListEvents(listId ?? null, useCallback((event: ListEvent, replayed: boolean) => {
+    const lastSeq = lastSeqRef.current;
+    if (lastSeq === null || event.seq > lastSeq) {
+      lastSeqRef.current = event.seq;
+      const cached = queryClient.getQueryData<ListItemResponse[]>(['listItems', listId]);
+      // A merged frame covers fromSeq..seq
+      if (cached && lastSeq !== null && (event.fromSeq ?? event.seq) === lastSeq + 1) {
+        queryClient.setQueryData(['listItems', listId], applyListEvent(cached, event));
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['listItems', listId] });
+      }
+    }
+    if (replayed) return;
     const who = event.userDisplayName || 'מישהו';
     const what = event.itemDisplayName + ' ' + event.quantityUnit;
     if (event.type === 'ADDED') showNotification(`${who} הוסיף: ${what}`);
     if (event.type === 'REMOVED') showNotification(`${who} הסיר: ${what}`);
     if (event.type === 'UPDATED') showNotification(`${who} עדכן: ${what}`);
+    if (event.type === 'BATCH') showNotification(`${who} עדכן: ${event.itemDisplayName}`);
+  }, [listId, queryClient]), useCallback(() => {
+    queryClient.invalidateQueries({ queryKey: ['listItems', listId] });
   }, [listId, queryClient]));
 
-  useWorkspaceEvents(list?.workspaceId ?? null, useCallback((event: WorkspaceEvent) => {
+  const workspaceId = list?.workspaceId ?? null;
+  useWorkspaceEvents(workspaceId, useCallback((event: WorkspaceEvent) => {
     if (event.entityType === 'LIST') {
-      queryClient.invalidateQueries({ queryKey: ['list', listId] });
-      queryClient.invalidateQueries({ queryKey: ['lists'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<ListResponse[]>(['lists', workspaceId], (rows) => patchEntities(rows, event));
+        const entity = event.entity as ListResponse | null | undefined;
+        if (entity && entity.id === listId) {
+          queryClient.setQueryData<ListResponse>(['list', listId], (current) =>
+            current && current.version > entity.version ? current : entity);
+        }
+        if (event.action === 'DELETED' && event.entityId === listId) {
+          queryClient.invalidateQueries({ queryKey: ['list', listId] });
+        }
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['list', listId] });
+        queryClient.invalidateQueries({ queryKey: ['lists'] });
+      }
     }
+    // Item names and icons come from products and categories, so the items still refetch (cheaply, by ETag)
     if (event.entityType === 'CATEGORY') {
-      queryClient.invalidateQueries({ queryKey: ['categories'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<CategoryDto[]>(['categories', workspaceId], (rows) => patchEntities(rows, event));
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['categories'] });
+      }
       queryClient.invalidateQueries({ queryKey: ['listItems', listId] });
     }
     if (event.entityType === 'PRODUCT') {
-      queryClient.invalidateQueries({ queryKey: ['products'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<ProductDto[]>(['products'], (rows) => patchEntities(rows, event));
+        queryClient.invalidateQueries({ queryKey: ['products'], predicate: (q) => q.queryKey.length > 1 });
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['products'] });
+      }
       queryClient.invalidateQueries({ queryKey: ['listItems', listId] });
     }
+  }, [listId, workspaceId, queryClient]), useCallback(() => {
+    queryClient.invalidateQueries({ queryKey: ['list', listId] });
+    queryClient.invalidateQueries({ queryKey: ['lists'] });
+    queryClient.invalidateQueries({ queryKey: ['categories'] });
+    queryClient.invalidateQueries({ queryKey: ['products'] });
   }, [listId, queryClient]));
 
   const sensors = useSensors(
@@ -258,7 +307,11 @@ export function ListDetail() {
     }: {
       itemId: string;
       body: { crossedOff?: boolean; quantity?: number; unit?: string; note?: string; itemImageUrl?: string | null; iconId?: string | null; categoryId?: string; version?: number };
-    }) => updateListItem(listId, itemId, body),
+    }) => {
+      // Over the live connection when there is one: a frame each way instead of an HTTPS request
+      const sent = sendItemCommand(`${itemId}/update`, body);
+      return sent ? sent.then((ack) => ack.item as ListItemResponse) : updateListItem(listId, itemId, body);
+    },
     onMutate: async ({ itemId, body }) => {
       await queryClient.cancelQueries({ queryKey: ['listItems', listId] });
       const previous = queryClient.getQueryData<ListItemResponse[]>(['listItems', listId]);
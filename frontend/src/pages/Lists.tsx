@@ -6,14 +6,14 @@ import { getWorkspaces, createWorkspace, updateWorkspace, deleteWorkspace } from
 import { uploadFile } from '../api/client';
 import { useAuthStore } from '../store/authStore';
 import { useWorkspaceStore } from '../store/workspaceStore';
-import { useWorkspaceEvents } from '../hooks/useWorkspaceEvents';
+import { canPatch, patchEntities, useWorkspaceEvents } from '../hooks/useWorkspaceEvents';
 import { AppBar } from '../components/AppBar';
 import { CategoryIcon } from '../components/CategoryIcon';
 import { DisplayImageForm, type DisplayImageType } from '../components/DisplayImageForm';
 import { getUserDisplayLabel } from '../utils/user';
 import { WorkspaceTabs, type TabKey } from '../components/WorkspaceTabs';
 import { Categories } from './Categories';
-import type { ListResponse, WorkspaceEvent } from '../types';
+import type { CategoryDto, ListResponse, ProductDto, WorkspaceDto, WorkspaceEvent } from '../types';
 
 export function Lists() {
   const [activeTab, setActiveTab] = useState<TabKey>('lists');
@@ -64,18 +64,45 @@ export function Lists() {
   const activeWorkspace = workspaces.find((w) => w.id === activeWorkspaceId) ?? null;
 
   useWorkspaceEvents(activeWorkspaceId, useCallback((event: WorkspaceEvent) => {
+    // Events carry the changed entity, so patch the cache rather than reload the whole collection
     if (event.entityType === 'LIST') {
-      queryClient.invalidateQueries({ queryKey: ['lists', activeWorkspaceId] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<ListResponse[]>(['lists', activeWorkspaceId], (rows) => patchEntities(rows, event));
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['lists', activeWorkspaceId] });
+      }
     }
     if (event.entityType === 'WORKSPACE') {
-      queryClient.invalidateQueries({ queryKey: ['workspaces'] });
+      const entity = event.entity as WorkspaceDto | null | undefined;
+      if (event.action === 'UPDATED' && entity) {
+        // The broadcast copy has no role: it is per member, so keep ours
+        queryClient.setQueryData<WorkspaceDto[]>(['workspaces'], (rows) => rows?.map((w) =>
+          w.id === entity.id && w.version <= entity.version ? { ...entity, role: w.role } : w));
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['workspaces'] });
+      }
     }
     if (event.entityType === 'CATEGORY') {
-      queryClient.invalidateQueries({ queryKey: ['categories'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<CategoryDto[]>(['categories', activeWorkspaceId], (rows) => patchEntities(rows, event));
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['categories'] });
+      }
     }
     if (event.entityType === 'PRODUCT') {
-      queryClient.invalidateQueries({ queryKey: ['products'] });
+      if (canPatch(event)) {
+        queryClient.setQueryData<ProductDto[]>(['products'], (rows) => patchEntities(rows, event));
+        // Filtered product queries can't be patched blindly; mark them stale
+        queryClient.invalidateQueries({ queryKey: ['products'], predicate: (q) => q.queryKey.length > 1 });
+      } else {
+        queryClient.invalidateQueries({ queryKey: ['products'] });
+      }
     }
+  }, [activeWorkspaceId, queryClient]), useCallback(() => {
+    queryClient.invalidateQueries({ queryKey: ['workspaces'] });
+    queryClient.invalidateQueries({ queryKey: ['lists', activeWorkspaceId] });
+    queryClient.invalidateQueries({ queryKey: ['categories'] });
+    queryClient.invalidateQueries({ queryKey: ['products'] });
   }, [activeWorkspaceId, queryClient]));
 
   function showToast(msg: string, isError = false) {
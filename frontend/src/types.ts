@@ -15,6 +15,8 @@ export interface ListResponse {
   iconId: string | null;
   imageUrl: string | null;
   sortOrder: number;
+  /** Position key; lists, items and categories come back ordered by it. */
+  sortRank?: string;
   createdAt: string;
   updatedAt: string;
   version: number;
@@ -38,11 +40,22 @@ export interface ListItemResponse {
   itemImageUrl: string | null;
   productImageUrl: string | null;
   sortOrder: number;
+  /** Position key; lists, items and categories come back ordered by it. */
+  sortRank?: string;
   createdAt: string;
   updatedAt: string;
   version: number;
 }
 
+/** Delta sync answer: apply items and removedIds, then pass seq as `since` next time. */
+export interface ListItemsDelta {
+  seq: number;
+  /** When true, items is the whole list and replaces the local copy. */
+  full: boolean;
+  items: ListItemResponse[];
+  removedIds: string[];
+}
+
 export interface CategoryDto {
   id: string;
   workspaceId: string;
@@ -50,6 +63,8 @@ export interface CategoryDto {
   iconId: string | null;
   imageUrl: string | null;
   sortOrder: number;
+  /** Position key; lists, items and categories come back ordered by it. */
+  sortRank?: string;
   /** Total list-item adds for products in this category (for frequency sort). */
   addCount: number;
   version: number;
@@ -82,13 +97,27 @@ export interface ProductDto {
 }
 
 export interface ListEvent {
-  type: 'ADDED' | 'REMOVED' | 'UPDATED';
+  type: 'ADDED' | 'REMOVED' | 'UPDATED' | 'BATCH';
   listId: string;
-  itemId: string;
+  itemId: string | null;
   itemDisplayName: string;
   quantityUnit: string;
-  userId: string;
-  userDisplayName: string;
+  /** Null on a merged frame from several users. */
+  userId: string | null;
+  userDisplayName: string | null;
+  /** BATCH only */
+  addedCount?: number;
+  updatedCount?: number;
+  removedCount?: number;
+  /** The list's change sequence after this write; a jump means a missed write, so refetch. */
+  seq: number;
+  /** Merged BATCH: the first write's sequence, so the frame covers fromSeq..seq. */
+  fromSeq?: number | null;
+  /** ADDED / UPDATED: the item as GET /items returns it. */
+  item?: ListItemResponse | null;
+  /** BATCH: items added or updated, and ids removed. */
+  items?: ListItemResponse[] | null;
+  removedItemIds?: string[] | null;
 }
 
 export interface WorkspaceEvent {
@@ -99,6 +128,32 @@ export interface WorkspaceEvent {
   entityName: string;
   userId: string;
   userDisplayName: string;
+  /** The entity as its GET returns it; absent for DELETED. */
+  entity?: CategoryDto | ProductDto | ListResponse | WorkspaceDto | null;
+  version?: number | null;
+  /** For replay on reconnect; only ordered within this server's lifetime. */
+  seq?: number | null;
+  /** The server replica that set `seq`; a reconnect to another one resyncs. */
+  replica?: string | null;
+}
+
+/** Reply to an item command sent over STOMP; `status` uses HTTP codes. */
+export interface ListItemAck {
+  requestId: string;
+  status: number;
+  itemId: string | null;
+  item: ListItemResponse | null;
+  version: number | null;
+  message: string | null;
+}
+
+/** Reply to a replay subscription after a reconnect. */
+export interface EventReplay<E> {
+  /** The missed events are no longer all known: refetch. */
+  resyncRequired: boolean;
+  events: E[];
+  /** Lists: the change sequence now; beyond the last replayed event means writes without events, so refetch. */
+  seq: number | null;
 }
 
 export interface ListMemberDto {